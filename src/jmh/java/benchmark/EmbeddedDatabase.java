@@ -0,0 +1,57 @@
+package benchmark;
+
+import dao.BatchResult;
+import dao.UserDao;
+import models.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.H2Dialect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds a SessionFactory from the application's hibernate.cfg.xml pointed at a fresh in-memory
+ * H2 database, so benchmarks run the production mapping, cache and pool settings without a server.
+ */
+final class EmbeddedDatabase {
+
+    private static final AtomicInteger databases = new AtomicInteger();
+
+    private EmbeddedDatabase() {
+    }
+
+    static SessionFactory start() {
+        String url = "jdbc:h2:mem:bench" + databases.incrementAndGet()
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+        return new Configuration()
+                .configure("hibernate.cfg.xml")
+                .setProperty("hibernate.connection.driver_class", "org.h2.Driver")
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.dialect", H2Dialect.class.getName())
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.show_sql", "false")
+                .setProperty("hibernate.format_sql", "false")
+                .buildSessionFactory();
+    }
+
+    /**
+     * Inserts {@code rows} users with emails {@code <prefix>-<n>@example.com}.
+     *
+     * @return the saved users, with ids assigned
+     */
+    static List<User> populate(UserDao userDao, String prefix, int rows) {
+        List<User> users = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            users.add(new User("User " + i, prefix + "-" + i + "@example.com", 18 + i % 70));
+        }
+        BatchResult<User> result = userDao.createUsers(users, 1000);
+        if (result.hasFailures()) {
+            throw new IllegalStateException("Could not populate benchmark table: " + result.getFailures().get(0).getReason());
+        }
+        return result.getSaved();
+    }
+}
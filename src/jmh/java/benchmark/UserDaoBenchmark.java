@@ -0,0 +1,124 @@
+package benchmark;
+
+import dao.UserDao;
+import dao.impl.UserDaoImpl;
+import models.User;
+import models.UserView;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of {@link UserDaoImpl} on tables of different sizes, single-threaded;
+ * {@link Concurrent} runs the same operations from 4 threads. The {@code *View*} benchmarks are the
+ * read-only projection counterparts of the entity reads; run with {@code -prof gc} to compare
+ * allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDaoBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    private SessionFactory sessionFactory;
+    private UserDao userDao;
+    private long[] ids;
+    private String[] emails;
+    private final AtomicLong savedUsers = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = EmbeddedDatabase.start();
+        userDao = new UserDaoImpl(sessionFactory);
+        List<User> users = EmbeddedDatabase.populate(userDao, "dao", tableSize);
+        ids = new long[users.size()];
+        emails = new String[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            ids[i] = users.get(i).getId();
+            emails[i] = users.get(i).getEmail();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public User save() {
+        return userDao.save(new User("New User", "new-" + savedUsers.incrementAndGet() + "@example.com", 30));
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userDao.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public User findByEmail() {
+        return userDao.findByEmail(emails[ThreadLocalRandom.current().nextInt(emails.length)]);
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userDao.findAll();
+    }
+
+    @Benchmark
+    public Optional<UserView> findViewById() {
+        return userDao.findViewById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<User> findPage() {
+        return userDao.findPage(randomPageStart(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<UserView> findViewPage() {
+        return userDao.findViewPage(randomPageStart(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<User> findRecent() {
+        return userDao.findRecent(PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<UserView> findRecentViews() {
+        return userDao.findRecentViews(PAGE_SIZE);
+    }
+
+    private long randomPageStart() {
+        return ids[ThreadLocalRandom.current().nextInt(Math.max(1, ids.length - PAGE_SIZE))];
+    }
+
+    @Threads(4)
+    public static class Concurrent extends UserDaoBenchmark {
+    }
+}
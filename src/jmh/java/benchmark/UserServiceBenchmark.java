@@ -0,0 +1,108 @@
+package benchmark;
+
+import dao.BatchResult;
+import dao.impl.CoalescingUserDao;
+import dao.impl.UserDaoImpl;
+import models.User;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import service.UserService;
+import service.impl.UserServiceImpl;
+import util.HibernateTransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserServiceImpl write paths, wired like the application (coalescing DAO, one unit of work
+ * per call), single-threaded; {@link Concurrent} runs them from 4 threads.
+ * <p>
+ * deleteUser consumes a row per call, so it runs in single-shot batches of {@value #DELETE_BATCH}
+ * deletes over rows created before each iteration; its score is the time for the whole batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    static final int TABLE_SIZE = 10_000;
+    static final int DELETE_BATCH = 1_000;
+
+    private SessionFactory sessionFactory;
+    private UserService userService;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = EmbeddedDatabase.start();
+        UserDaoImpl userDao = new UserDaoImpl(sessionFactory);
+        userService = new UserServiceImpl(new CoalescingUserDao(userDao), null,
+                new HibernateTransactionTemplate(sessionFactory));
+        ids = EmbeddedDatabase.populate(userDao, "service", TABLE_SIZE).stream()
+                .mapToLong(User::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public User updateUser() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userService.updateUser(ids[random.nextInt(ids.length)], null, null, 18 + random.nextInt(70));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = DELETE_BATCH)
+    @Measurement(iterations = 10, batchSize = DELETE_BATCH)
+    public boolean deleteUser(DeletableUsers users) {
+        return userService.deleteUser(users.ids.pop());
+    }
+
+    @State(Scope.Thread)
+    public static class DeletableUsers {
+
+        private static final AtomicLong created = new AtomicLong();
+
+        private final Deque<Long> ids = new ArrayDeque<>();
+
+        @Setup(Level.Iteration)
+        public void createUsers(UserServiceBenchmark benchmark) {
+            List<User> users = new ArrayList<>(DELETE_BATCH);
+            for (int i = 0; i < DELETE_BATCH; i++) {
+                users.add(new User("Doomed User", "doomed-" + created.incrementAndGet() + "@example.com", 40));
+            }
+            BatchResult<User> result = benchmark.userService.createUsers(users);
+            ids.clear();
+            result.getSaved().forEach(user -> ids.push(user.getId()));
+        }
+    }
+
+    @Threads(4)
+    public static class Concurrent extends UserServiceBenchmark {
+    }
+}
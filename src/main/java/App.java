@@ -1,24 +1,92 @@
 
+import dao.UserDao;
+import dao.impl.CoalescingUserDao;
+import dao.impl.HedgingUserDao;
+import dao.impl.InstrumentedUserDao;
+import dao.impl.RoutingUserDao;
+import dao.impl.UserDaoImpl;
 import models.User;
+import models.UserView;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import service.ExportFormat;
 import service.UserService;
+import service.impl.InstrumentedUserService;
+import service.impl.UserCsvImporter;
 import service.impl.UserServiceImpl;
+import service.impl.UserServiceWarmUp;
+import service.impl.UserTrigramIndex;
+import util.ConnectionPoolStats;
+import util.HibernateTransactionTemplate;
 import util.HibernateUtil;
+import util.LatencyHistogram;
+import util.OperationMetrics;
+import util.StartupReport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 
 public class App {
 
     private static final Logger logger = LoggerFactory.getLogger(App.class);
-    private static final UserService userService = new UserServiceImpl();
+    // how long a caller in a RoutingUserDao.readYourWrites() scope keeps reading from the primary after a write
+    private static final Duration READ_YOUR_WRITES_WINDOW = Duration.ofSeconds(5);
+    private static final String HEDGED_READS_PROPERTY = "app.hedgedReads";
+    private static final String FUZZY_SEARCH_PROPERTY = "app.fuzzySearch";
+    private static final int FUZZY_SEARCH_RESULTS = 10;
+    private static final OperationMetrics daoMetrics = new OperationMetrics("UserDao");
+    private static final OperationMetrics serviceMetrics = new OperationMetrics("UserService");
+    private static final List<HedgingUserDao> hedgedReplicas = new ArrayList<>();
+    private static final RoutingUserDao userDao = createUserDao();
+    private static final UserServiceImpl userServiceImpl = new UserServiceImpl(userDao, null,
+            new HibernateTransactionTemplate(HibernateUtil.getSessionFactory()),
+            Boolean.getBoolean(FUZZY_SEARCH_PROPERTY) ? new UserTrigramIndex() : null);
+    private static final UserService userService = new InstrumentedUserService(userServiceImpl, serviceMetrics);
     private static final Scanner scanner = new Scanner(System.in);
 
     public static void main(String[] args) {
         logger.info("Starting User Service Application");
+        if (args.length > 0 && args[0].equals("import")) {
+            runImport(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("export")) {
+            runExport(args);
+            return;
+        }
+        daoMetrics.registerMBeans();
+        serviceMetrics.registerMBeans();
+        if (userServiceImpl.getSearchIndex().isPresent()) {
+            StartupReport.time("search index", userServiceImpl::rebuildSearchIndex);
+        }
+        new UserServiceWarmUp(userService, userDao, UserServiceWarmUp.Settings.fromSystemProperties()).run();
+        // the warm-up's synthetic calls are not traffic
+        daoMetrics.reset();
+        serviceMetrics.reset();
+        StartupReport.ready();
+        logger.info("{}", StartupReport.render());
+
+        // training run for a class-data-sharing archive: boot, then exit (see the fast-boot profile in pom.xml)
+        if (Boolean.getBoolean("app.bootOnly")) {
+            HibernateUtil.shutdown();
+            return;
+        }
 
         try {
             boolean exit = false;
@@ -45,6 +113,18 @@ public class App {
                     case 6:
                         deleteUser();
                         break;
+                    case 7:
+                        printConnectionPoolStats();
+                        break;
+                    case 8:
+                        printCacheStats();
+                        break;
+                    case 9:
+                        printOperationMetrics();
+                        break;
+                    case 10:
+                        fuzzySearchUsers();
+                        break;
                     case 0:
                         exit = true;
                         break;
@@ -62,11 +142,96 @@ public class App {
             System.out.println("An unexpected error occurred: " + e.getMessage());
         } finally {
             scanner.close();
+            logger.info("Operation metrics at shutdown:\n{}{}", serviceMetrics.dump(), daoMetrics.dump());
+            hedgedReplicas.forEach(HedgingUserDao::close);
+            serviceMetrics.unregisterMBeans();
+            daoMetrics.unregisterMBeans();
             HibernateUtil.shutdown();
             logger.info("Application shutdown complete");
         }
     }
 
+    /**
+     * Primary and replica DAOs behind a {@link RoutingUserDao}; with {@code -Dapp.hedgedReads=true}, slow
+     * replica lookups are hedged to the next replica (or to the primary when there is only one).
+     */
+    private static RoutingUserDao createUserDao() {
+        UserDao primary = new CoalescingUserDao(new InstrumentedUserDao(new UserDaoImpl(), daoMetrics));
+        List<UserDao> replicas = new ArrayList<>();
+        for (SessionFactory replica : HibernateUtil.getReplicaSessionFactories()) {
+            replicas.add(new CoalescingUserDao(new InstrumentedUserDao(new UserDaoImpl(replica), daoMetrics)));
+        }
+        if (Boolean.getBoolean(HEDGED_READS_PROPERTY)) {
+            List<UserDao> hedged = new ArrayList<>();
+            for (int i = 0; i < replicas.size(); i++) {
+                UserDao alternate = replicas.size() > 1 ? replicas.get((i + 1) % replicas.size()) : primary;
+                HedgingUserDao replica = new HedgingUserDao(replicas.get(i), alternate, HedgingUserDao.Settings.defaults());
+                hedgedReplicas.add(replica);
+                hedged.add(replica);
+            }
+            replicas = hedged;
+        }
+        return new RoutingUserDao(primary, replicas, HibernateUtil.getSessionFactory().getCache(), READ_YOUR_WRITES_WINDOW);
+    }
+
+    /**
+     * {@code App import <file.csv> [batchSize]}: bulk-loads the file and exits, see {@link UserCsvImporter}.
+     */
+    private static void runImport(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: App import <file.csv> [batchSize]");
+            return;
+        }
+        UserCsvImporter.Settings defaults = UserCsvImporter.Settings.defaults();
+        UserCsvImporter.Settings settings = new UserCsvImporter.Settings(
+                args.length > 2 ? Integer.parseInt(args[2]) : defaults.getBatchSize(),
+                defaults.getThreads(),
+                defaults.getProgressInterval());
+        try {
+            UserCsvImporter.Report report = new UserCsvImporter(userDao, settings).importFile(Paths.get(args[1]));
+            System.out.println("Import finished: " + report);
+            report.getRejectionSamples().forEach(rejection -> System.out.println("  rejected " + rejection));
+        } catch (Exception e) {
+            logger.error("Import of {} failed: {}", args[1], e.getMessage(), e);
+            System.out.println("Import failed: " + e.getMessage());
+        } finally {
+            logger.info("Operation metrics after import:\n{}", daoMetrics.dump());
+            HibernateUtil.shutdown();
+        }
+    }
+
+    /**
+     * {@code App export <file> [csv|jsonl]}: writes all users to the file and exits; a file name ending
+     * in ".gz" is gzip-compressed.
+     */
+    private static void runExport(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: App export <file[.gz]> [csv|jsonl]");
+            return;
+        }
+        Path file = Paths.get(args[1]);
+        ExportFormat format = args.length > 2 ? ExportFormat.fromName(args[2]) : ExportFormat.CSV;
+        long start = System.nanoTime();
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long rows;
+            if (file.getFileName().toString().endsWith(".gz")) {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(out), 1 << 16)) {
+                    rows = userService.exportUsers(Channels.newChannel(gzip), format);
+                }
+            } else {
+                rows = userService.exportUsers(out, format);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.printf("Exported %d users to %s in %d ms (%d bytes)%n", rows, file, millis, Files.size(file));
+        } catch (Exception e) {
+            logger.error("Export to {} failed: {}", file, e.getMessage(), e);
+            System.out.println("Export failed: " + e.getMessage());
+        } finally {
+            HibernateUtil.shutdown();
+        }
+    }
+
     private static void printMenu() {
         System.out.println("\n=== USER SERVICE MENU ===");
         System.out.println("1. Create new user");
@@ -75,6 +240,10 @@ public class App {
         System.out.println("4. Get all users");
         System.out.println("5. Update user");
         System.out.println("6. Delete user");
+        System.out.println("7. Connection pool statistics");
+        System.out.println("8. Cache statistics");
+        System.out.println("9. Operation metrics");
+        System.out.println("10. Fuzzy search by name or email");
         System.out.println("0. Exit");
         System.out.println("========================");
     }
@@ -136,18 +305,41 @@ public class App {
         }
     }
 
-    private static void getAllUsers() {
-        System.out.println("\n=== ALL USERS ===");
+    private static void fuzzySearchUsers() {
+        System.out.println("\n=== FUZZY SEARCH ===");
+
+        if (userServiceImpl.getSearchIndex().isEmpty()) {
+            System.out.println("Fuzzy search is disabled; start with -D" + FUZZY_SEARCH_PROPERTY + "=true.");
+            return;
+        }
+        String text = readStringInput("Enter part of a name or email: ");
 
         try {
-            List<User> users = userService.getAllUsers();
+            List<UserView> users = userService.fuzzySearchUsers(text, FUZZY_SEARCH_RESULTS);
             if (users.isEmpty()) {
+                System.out.println("No matching users found.");
+            } else {
+                users.forEach(System.out::println);
+            }
+        } catch (Exception e) {
+            logger.error("Error searching users: {}", e.getMessage(), e);
+            System.out.println("Error occurred while searching users: " + e.getMessage());
+        }
+    }
+
+    private static void getAllUsers() {
+        System.out.println("\n=== ALL USERS ===");
+
+        try (Stream<User> users = userService.streamAllUsers()) {
+            long[] count = {0};
+            users.forEach(user -> {
+                System.out.println(user);
+                count[0]++;
+            });
+            if (count[0] == 0) {
                 System.out.println("No users found.");
             } else {
-                System.out.println("Total users: " + users.size());
-                for (User user : users) {
-                    System.out.println(user);
-                }
+                System.out.println("Total users: " + count[0]);
             }
         } catch (Exception e) {
             logger.error("Error getting all users: {}", e.getMessage(), e);
@@ -208,6 +400,65 @@ public class App {
         }
     }
 
+    private static void printConnectionPoolStats() {
+        System.out.println("\n=== CONNECTION POOL STATISTICS ===");
+
+        try {
+            ConnectionPoolStats stats = HibernateUtil.getConnectionPoolStats();
+            LatencyHistogram.Snapshot acquire = stats.getAcquireLatency();
+            System.out.println("Active connections: " + stats.getActiveConnections());
+            System.out.println("Idle connections: " + stats.getIdleConnections());
+            System.out.println("Total connections: " + stats.getTotalConnections());
+            System.out.println("Threads awaiting connection: " + stats.getThreadsAwaitingConnection());
+            System.out.println("Acquire timeouts: " + stats.getAcquireTimeouts());
+            System.out.println("Acquire latency: " + acquire);
+        } catch (Exception e) {
+            logger.error("Error reading connection pool statistics: {}", e.getMessage(), e);
+            System.out.println("Error occurred while reading pool statistics: " + e.getMessage());
+        }
+    }
+
+    private static void printCacheStats() {
+        System.out.println("\n=== CACHE STATISTICS ===");
+
+        try {
+            Statistics statistics = HibernateUtil.getStatistics();
+            CacheRegionStatistics users = statistics.getDomainDataRegionStatistics(User.CACHE_REGION);
+            CacheRegionStatistics byEmail = statistics.getQueryRegionStatistics(User.BY_EMAIL_QUERY_CACHE_REGION);
+            System.out.println("Second-level cache: hits=" + statistics.getSecondLevelCacheHitCount()
+                    + ", misses=" + statistics.getSecondLevelCacheMissCount()
+                    + ", puts=" + statistics.getSecondLevelCachePutCount());
+            System.out.println("Query cache: hits=" + statistics.getQueryCacheHitCount()
+                    + ", misses=" + statistics.getQueryCacheMissCount()
+                    + ", puts=" + statistics.getQueryCachePutCount());
+            printRegionStats(User.CACHE_REGION, users);
+            printRegionStats(User.BY_EMAIL_QUERY_CACHE_REGION, byEmail);
+        } catch (Exception e) {
+            logger.error("Error reading cache statistics: {}", e.getMessage(), e);
+            System.out.println("Error occurred while reading cache statistics: " + e.getMessage());
+        }
+    }
+
+    private static void printOperationMetrics() {
+        System.out.println("\n=== OPERATION METRICS ===");
+        System.out.print(serviceMetrics.dump());
+        System.out.print(daoMetrics.dump());
+        System.out.println(userDao);
+        hedgedReplicas.forEach(System.out::println);
+        userServiceImpl.getSearchIndex().ifPresent(System.out::println);
+    }
+
+    private static void printRegionStats(String region, CacheRegionStatistics stats) {
+        if (stats == null) {
+            System.out.println("Region " + region + ": not used yet");
+            return;
+        }
+        System.out.println("Region " + region + ": hits=" + stats.getHitCount()
+                + ", misses=" + stats.getMissCount()
+                + ", puts=" + stats.getPutCount()
+                + ", elements=" + stats.getElementCountInMemory());
+    }
+
     private static String readStringInput(String prompt) {
         System.out.print(prompt);
         return scanner.nextLine().trim();
@@ -0,0 +1,74 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk write: the items that were stored and, for every rejected item, the reason.
+ */
+public class BatchResult<T> {
+
+    private final List<T> saved = new ArrayList<>();
+    private final List<Failure<T>> failures = new ArrayList<>();
+
+    public void addSaved(T item) {
+        saved.add(item);
+    }
+
+    public void addFailure(T item, String reason) {
+        failures.add(new Failure<>(item, reason));
+    }
+
+    public void addAll(BatchResult<T> other) {
+        saved.addAll(other.saved);
+        failures.addAll(other.failures);
+    }
+
+    public List<T> getSaved() {
+        return Collections.unmodifiableList(saved);
+    }
+
+    public List<Failure<T>> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "saved=" + saved.size() +
+                ", failed=" + failures.size() +
+                '}';
+    }
+
+    public static class Failure<T> {
+
+        private final T item;
+        private final String reason;
+
+        public Failure(T item, String reason) {
+            this.item = item;
+            this.reason = reason;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{" +
+                    "item=" + item +
+                    ", reason='" + reason + '\'' +
+                    '}';
+        }
+    }
+}
@@ -17,5 +17,5 @@ public interface GenericDao<T, ID> {
 
     void delete(T entity);
 
-    boolean deleteById(ID id);
+    int deleteById(ID id);
 }
\ No newline at end of file
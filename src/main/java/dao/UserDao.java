@@ -1,10 +1,99 @@
 package dao;
 
 import models.User;
+import models.UserView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public interface UserDao extends GenericDao<User, Long> {
 
 
     User findByEmail(String email);
+
+    /**
+     * Inserts the user with a single statement unless a user with the same email exists.
+     *
+     * @return the stored user with its id assigned, or empty if the email is already taken
+     */
+    Optional<User> insertIfEmailAbsent(User user);
+
+    /**
+     * Inserts the user, or updates name and age of the user with the same email, in one statement.
+     *
+     * @return the stored user with the id and creation time of the affected row
+     */
+    User upsertByEmail(User user);
+
+    /**
+     * Updates only the non-null columns of the user with one statement and increments its version.
+     *
+     * @param expectedVersion when not null, the update only applies if the row still has this version
+     * @return the updated user, or empty if no user with this id exists
+     * @throws jakarta.persistence.OptimisticLockException if the row exists but its version differs
+     */
+    Optional<User> updateFields(Long id, String name, String email, Integer age, Long expectedVersion);
+
+    /**
+     * Loads all users with the given ids in as few queries as possible; ids that do not exist are skipped.
+     */
+    List<User> findAllByIds(Collection<Long> ids);
+
+    List<User> findAllByEmails(Collection<String> emails);
+
+    BatchResult<User> createUsers(Collection<User> users, int batchSize);
+
+    /**
+     * Bulk-load path: inserts the users through a StatelessSession in JDBC batches of {@code batchSize},
+     * in one transaction. Users whose email already exists (or repeats within the list) are reported as
+     * failures; if the transaction fails, the users are retried one statement each.
+     */
+    BatchResult<User> importUsers(List<User> users, int batchSize);
+
+    /**
+     * Keyset pagination: returns up to {@code limit} users with id greater than {@code afterId}
+     * (or from the start when {@code afterId} is null), ordered by id.
+     */
+    List<User> findPage(Long afterId, int limit);
+
+    /**
+     * Returns up to {@code limit} of the most recently created users, newest first.
+     */
+    List<User> findRecent(int limit);
+
+    /**
+     * Streams every user ordered by id from a database cursor. The stream holds an open
+     * connection and must be closed by the caller (try-with-resources).
+     */
+    Stream<User> streamAll(int fetchSize);
+
+    /**
+     * Read-only lookup: loads the user as an unmanaged {@link UserView}, bypassing the persistence
+     * context and the second-level cache.
+     */
+    Optional<UserView> findViewById(Long id);
+
+    /**
+     * Read-only variant of {@link #findPage(Long, int)} returning {@link UserView} projections.
+     */
+    List<UserView> findViewPage(Long afterId, int limit);
+
+    /**
+     * Read-only variant of {@link #findRecent(int)} returning {@link UserView} projections.
+     */
+    List<UserView> findRecentViews(int limit);
+
+    /**
+     * Returns one keyset page of the users matching the query's filters, in its sort order, as
+     * read-only projections. Continue with {@code query.after(lastRowOfThePage)}.
+     */
+    List<UserView> search(UserQuery query);
+
+    /**
+     * Counts all users matching the query's filters, ignoring its sort order and page.
+     */
+    long count(UserQuery query);
 }
\ No newline at end of file
@@ -0,0 +1,228 @@
+package dao;
+
+import models.UserView;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Immutable filter, sort order and keyset page for {@link UserDao#search(UserQuery)}. Every method
+ * returns a new query, so a query can be built up fluently from {@link #all()} and shared:
+ * <pre>
+ *     UserQuery query = UserQuery.all().namePrefix("Jo").ageBetween(18, 30).sortBy(UserQuery.Sort.CREATED_AT, true);
+ *     List&lt;UserView&gt; page = userDao.search(query);
+ *     List&lt;UserView&gt; next = userDao.search(query.after(page.get(page.size() - 1)));
+ * </pre>
+ * Pages are keyset-based: the next page starts after the sort value and id of the last row of the
+ * previous one, so paging stays cheap at any depth and is not disturbed by concurrent inserts.
+ * Sorting by age leaves out users without an age, since nulls cannot take part in a keyset.
+ */
+public final class UserQuery {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 1_000;
+
+    public enum Sort {
+        ID("id"),
+        NAME("name"),
+        AGE("age"),
+        CREATED_AT("createdAt");
+
+        private final String attribute;
+
+        Sort(String attribute) {
+            this.attribute = attribute;
+        }
+
+        /**
+         * @return the name of the User attribute sorted by
+         */
+        public String getAttribute() {
+            return attribute;
+        }
+
+        Comparable<?> valueOf(UserView view) {
+            switch (this) {
+                case NAME:
+                    return view.getName();
+                case AGE:
+                    return view.getAge();
+                case CREATED_AT:
+                    return view.getCreatedAt();
+                default:
+                    return view.getId();
+            }
+        }
+    }
+
+    private final String namePrefix;
+    private final Integer minAge;
+    private final Integer maxAge;
+    private final LocalDateTime createdFrom;
+    private final LocalDateTime createdBefore;
+    private final String emailDomain;
+    private final Sort sort;
+    private final boolean descending;
+    private final int limit;
+    private final Comparable<?> afterValue;
+    private final Long afterId;
+
+    private UserQuery(String namePrefix, Integer minAge, Integer maxAge, LocalDateTime createdFrom,
+                      LocalDateTime createdBefore, String emailDomain, Sort sort, boolean descending, int limit,
+                      Comparable<?> afterValue, Long afterId) {
+        this.namePrefix = namePrefix;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.createdFrom = createdFrom;
+        this.createdBefore = createdBefore;
+        this.emailDomain = emailDomain;
+        this.sort = sort;
+        this.descending = descending;
+        this.limit = limit;
+        this.afterValue = afterValue;
+        this.afterId = afterId;
+    }
+
+    /**
+     * @return a query without filters, ordered by id, for the first page of {@value #DEFAULT_LIMIT} users
+     */
+    public static UserQuery all() {
+        return new UserQuery(null, null, null, null, null, null, Sort.ID, false, DEFAULT_LIMIT, null, null);
+    }
+
+    /**
+     * Users whose name starts with the prefix (case-sensitive, so a plain index on name applies).
+     */
+    public UserQuery namePrefix(String prefix) {
+        String value = prefix == null || prefix.isEmpty() ? null : prefix;
+        return new UserQuery(value, minAge, maxAge, createdFrom, createdBefore, emailDomain, sort, descending,
+                limit, afterValue, afterId);
+    }
+
+    /**
+     * Users with {@code min <= age <= max}; either bound may be null.
+     */
+    public UserQuery ageBetween(Integer min, Integer max) {
+        if (min != null && max != null && min > max) {
+            throw new IllegalArgumentException("Minimum age must not exceed maximum age");
+        }
+        return new UserQuery(namePrefix, min, max, createdFrom, createdBefore, emailDomain, sort, descending,
+                limit, afterValue, afterId);
+    }
+
+    /**
+     * Users created at or after {@code from} and before {@code before}; either bound may be null.
+     */
+    public UserQuery createdBetween(LocalDateTime from, LocalDateTime before) {
+        if (from != null && before != null && !from.isBefore(before)) {
+            throw new IllegalArgumentException("Creation range must end after it starts");
+        }
+        return new UserQuery(namePrefix, minAge, maxAge, from, before, emailDomain, sort, descending,
+                limit, afterValue, afterId);
+    }
+
+    /**
+     * Users whose email is at the given domain, e.g. {@code example.com}; the match is case-insensitive.
+     */
+    public UserQuery emailDomain(String domain) {
+        String value = null;
+        if (domain != null && !domain.isBlank()) {
+            value = domain.trim().toLowerCase(Locale.ROOT);
+            if (value.startsWith("@")) {
+                value = value.substring(1);
+            }
+        }
+        return new UserQuery(namePrefix, minAge, maxAge, createdFrom, createdBefore, value, sort, descending,
+                limit, afterValue, afterId);
+    }
+
+    /**
+     * Orders by the attribute, then by id; drops the page position, which belongs to the previous order.
+     */
+    public UserQuery sortBy(Sort sort, boolean descending) {
+        return new UserQuery(namePrefix, minAge, maxAge, createdFrom, createdBefore, emailDomain,
+                Objects.requireNonNull(sort, "sort"), descending, limit, null, null);
+    }
+
+    public UserQuery limit(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Page limit must be between 1 and " + MAX_LIMIT);
+        }
+        return new UserQuery(namePrefix, minAge, maxAge, createdFrom, createdBefore, emailDomain, sort, descending,
+                limit, afterValue, afterId);
+    }
+
+    /**
+     * The page that follows {@code last}, the last row returned for this query.
+     */
+    public UserQuery after(UserView last) {
+        return new UserQuery(namePrefix, minAge, maxAge, createdFrom, createdBefore, emailDomain, sort, descending,
+                limit, sort.valueOf(last), last.getId());
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public LocalDateTime getCreatedBefore() {
+        return createdBefore;
+    }
+
+    public String getEmailDomain() {
+        return emailDomain;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the sort value of the last row of the previous page, or null for the first page
+     */
+    public Comparable<?> getAfterValue() {
+        return afterValue;
+    }
+
+    /**
+     * @return the id of the last row of the previous page, or null for the first page
+     */
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    @Override
+    public String toString() {
+        return "UserQuery{" +
+                "namePrefix='" + namePrefix + '\'' +
+                ", minAge=" + minAge +
+                ", maxAge=" + maxAge +
+                ", createdFrom=" + createdFrom +
+                ", createdBefore=" + createdBefore +
+                ", emailDomain='" + emailDomain + '\'' +
+                ", sort=" + sort + (descending ? " desc" : "") +
+                ", limit=" + limit +
+                ", afterId=" + afterId +
+                '}';
+    }
+}
@@ -0,0 +1,152 @@
+package dao.impl;
+
+import dao.UserDao;
+import models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.UnitOfWork;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DataLoader-style batching of findById calls: lookups arriving from any thread are collected
+ * for up to {@code window} (or until {@code maxBatchSize} distinct ids are pending) and then
+ * resolved together with a single {@link UserDao#findAllByIds} query.
+ * <p>
+ * Each caller still blocks until its own user is available, so the decorator is transparent
+ * to UserService; it trades up to one window of latency for far fewer queries under load.
+ * Lookups inside a {@link UnitOfWork} are not batched, since the dispatcher thread cannot join it.
+ */
+public class BatchingUserDao extends ForwardingUserDao implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchingUserDao.class);
+
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final ScheduledExecutorService dispatcher;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<Optional<User>>> pending = new HashMap<>();
+    private boolean flushScheduled;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public BatchingUserDao(UserDao delegate, int maxBatchSize, Duration window, int dispatchThreads) {
+        super(delegate);
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = Executors.newScheduledThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "user-batch-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        if (UnitOfWork.isActive()) {
+            return delegate.findById(id);
+        }
+        lookups.increment();
+        CompletableFuture<Optional<User>> result;
+        Map<Long, CompletableFuture<Optional<User>>> fullBatch = null;
+        synchronized (lock) {
+            result = pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = pending;
+                pending = new HashMap<>();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                dispatcher.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return await(result).map(User::new);
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        dispatcher.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchingUserDao{" +
+                "lookups=" + getLookupCount() +
+                ", batches=" + getBatchCount() +
+                '}';
+    }
+
+    private void flush() {
+        Map<Long, CompletableFuture<Optional<User>>> batch;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<Optional<User>>> batch) {
+        batches.increment();
+        try {
+            List<User> users = delegate.findAllByIds(batch.keySet());
+            for (User user : users) {
+                CompletableFuture<Optional<User>> future = batch.get(user.getId());
+                if (future != null) {
+                    future.complete(Optional.of(user));
+                }
+            }
+            for (CompletableFuture<Optional<User>> future : batch.values()) {
+                future.complete(Optional.empty());
+            }
+            logger.debug("Resolved batch of {} ids, {} found", batch.size(), users.size());
+        } catch (RuntimeException e) {
+            logger.error("Error resolving batch of {} ids: {}", batch.size(), e.getMessage(), e);
+            for (CompletableFuture<Optional<User>> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static Optional<User> await(CompletableFuture<Optional<User>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package dao.impl;
+
+import dao.UserDao;
+import models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.UnitOfWork;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache in front of any UserDao.
+ * <p>
+ * Users are kept in a bounded LRU map keyed by id, with an email→id index for
+ * {@link #findByEmail(String)}. Entries expire after the configured TTL. Cached users are
+ * copied on the way in and out, so callers mutating a returned entity cannot corrupt the cache.
+ * Writes going through this DAO invalidate the affected entries, again once the surrounding
+ * {@link UnitOfWork} (if any) completes; writes made by other processes become visible after
+ * at most one TTL.
+ */
+public class CachingUserDao extends ForwardingUserDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingUserDao.class);
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    private final Map<Long, CacheEntry> usersById;
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a load only populates the cache if no write happened meanwhile.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingUserDao(UserDao delegate) {
+        this(delegate, Settings.defaults());
+    }
+
+    public CachingUserDao(UserDao delegate, Settings settings) {
+        this(delegate, settings, System::nanoTime);
+    }
+
+    CachingUserDao(UserDao delegate, Settings settings, LongSupplier ticker) {
+        super(delegate);
+        this.maxSize = settings.getMaxSize();
+        this.ttlNanos = settings.getTtl().toNanos();
+        this.ticker = ticker;
+        this.usersById = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        User cached = lookup(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+
+        long loadGeneration = generation.get();
+        Optional<User> user = delegate.findById(id);
+        user.ifPresent(u -> store(u, loadGeneration));
+        return user;
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        Long id = idsByEmail.get(email);
+        if (id != null) {
+            User cached = lookup(id);
+            if (cached != null && email.equals(cached.getEmail())) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+
+        long loadGeneration = generation.get();
+        User user = delegate.findByEmail(email);
+        if (user != null) {
+            store(user, loadGeneration);
+        }
+        return user;
+    }
+
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        List<User> users = new ArrayList<>(ids.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            User cached = lookup(id);
+            if (cached != null) {
+                hits.increment();
+                users.add(cached);
+            } else {
+                misses.increment();
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long loadGeneration = generation.get();
+            for (User user : delegate.findAllByIds(missing)) {
+                store(user, loadGeneration);
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public User save(User user) {
+        User saved = delegate.save(user);
+        // inside a unit of work the row may still be rolled back, so let the next read populate it
+        if (!UnitOfWork.isActive()) {
+            store(saved, generation.get());
+        }
+        return saved;
+    }
+
+    @Override
+    public User update(User user) {
+        invalidate(user.getId());
+        try {
+            return delegate.update(user);
+        } finally {
+            invalidateAfterCompletion(user.getId());
+        }
+    }
+
+    @Override
+    public User upsertByEmail(User user) {
+        Long previousId = idsByEmail.get(user.getEmail());
+        invalidate(previousId);
+        User stored = delegate.upsertByEmail(user);
+        invalidateAfterCompletion(stored.getId());
+        return stored;
+    }
+
+    @Override
+    public Optional<User> updateFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        invalidate(id);
+        try {
+            return delegate.updateFields(id, name, email, age, expectedVersion);
+        } finally {
+            invalidateAfterCompletion(id);
+        }
+    }
+
+    @Override
+    public void delete(User user) {
+        invalidate(user.getId());
+        try {
+            delegate.delete(user);
+        } finally {
+            invalidateAfterCompletion(user.getId());
+        }
+    }
+
+    @Override
+    public int deleteById(Long id) {
+        invalidate(id);
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            invalidateAfterCompletion(id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (usersById) {
+            generation.incrementAndGet();
+            usersById.clear();
+            idsByEmail.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        synchronized (usersById) {
+            return usersById.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachingUserDao{" +
+                "size=" + size() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    private User lookup(Long id) {
+        if (id == null) {
+            return null;
+        }
+        synchronized (usersById) {
+            CacheEntry entry = usersById.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (ticker.getAsLong() - entry.loadedAt >= ttlNanos) {
+                usersById.remove(id);
+                idsByEmail.remove(entry.user.getEmail(), id);
+                evictions.increment();
+                return null;
+            }
+            return new User(entry.user);
+        }
+    }
+
+    private void store(User user, long loadGeneration) {
+        if (user.getId() == null) {
+            return;
+        }
+        synchronized (usersById) {
+            if (generation.get() != loadGeneration) {
+                return;
+            }
+            CacheEntry previous = usersById.put(user.getId(), new CacheEntry(new User(user), ticker.getAsLong()));
+            if (previous != null && !previous.user.getEmail().equals(user.getEmail())) {
+                idsByEmail.remove(previous.user.getEmail(), user.getId());
+            }
+            idsByEmail.put(user.getEmail(), user.getId());
+
+            Iterator<Map.Entry<Long, CacheEntry>> eldest = usersById.entrySet().iterator();
+            while (usersById.size() > maxSize && eldest.hasNext()) {
+                Map.Entry<Long, CacheEntry> evicted = eldest.next();
+                eldest.remove();
+                idsByEmail.remove(evicted.getValue().user.getEmail(), evicted.getKey());
+                evictions.increment();
+            }
+        }
+    }
+
+    private void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (usersById) {
+            generation.incrementAndGet();
+            CacheEntry entry = usersById.remove(id);
+            if (entry != null) {
+                idsByEmail.remove(entry.user.getEmail(), id);
+            }
+        }
+        logger.trace("Invalidated cached user {}", id);
+    }
+
+    private void invalidateAfterCompletion(Long id) {
+        UnitOfWork.afterCompletion(() -> invalidate(id));
+    }
+
+    private static class CacheEntry {
+
+        private final User user;
+        private final long loadedAt;
+
+        private CacheEntry(User user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public static class Settings {
+
+        private final int maxSize;
+        private final Duration ttl;
+
+        public Settings(int maxSize, Duration ttl) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("Cache size must be positive");
+            }
+            if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("Cache TTL must be positive");
+            }
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+
+        public static Settings defaults() {
+            return new Settings(10_000, Duration.ofMinutes(5));
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+    }
+}
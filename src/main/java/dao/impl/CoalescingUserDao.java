@@ -0,0 +1,56 @@
+package dao.impl;
+
+import dao.UserDao;
+import models.User;
+import util.SingleFlight;
+import util.UnitOfWork;
+
+import java.util.Optional;
+
+/**
+ * Shares one in-flight findById/findByEmail query between all threads asking for the same key
+ * at the same time. Every caller receives its own copy of the loaded user. Lookups made inside a
+ * {@link UnitOfWork} bypass coalescing so they see their own transaction's state.
+ */
+public class CoalescingUserDao extends ForwardingUserDao {
+
+    private final SingleFlight<Long, Optional<User>> byId = new SingleFlight<>();
+    private final SingleFlight<String, User> byEmail = new SingleFlight<>();
+
+    public CoalescingUserDao(UserDao delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        if (UnitOfWork.isActive()) {
+            return delegate.findById(id);
+        }
+        return byId.execute(id, () -> delegate.findById(id)).map(User::new);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        if (UnitOfWork.isActive()) {
+            return delegate.findByEmail(email);
+        }
+        User user = byEmail.execute(email, () -> delegate.findByEmail(email));
+        return user != null ? new User(user) : null;
+    }
+
+    public long getExecutedQueryCount() {
+        return byId.getExecutionCount() + byEmail.getExecutionCount();
+    }
+
+    public long getSavedQueryCount() {
+        return byId.getSharedCount() + byEmail.getSharedCount();
+    }
+
+    @Override
+    public String toString() {
+        return "CoalescingUserDao{" +
+                "executedQueries=" + getExecutedQueryCount() +
+                ", savedQueries=" + getSavedQueryCount() +
+                '}';
+    }
+}
@@ -0,0 +1,135 @@
+package dao.impl;
+
+import dao.BatchResult;
+import dao.UserDao;
+import dao.UserQuery;
+import models.User;
+import models.UserView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Base class for UserDao decorators: forwards every call to the delegate so subclasses
+ * only override the operations they change.
+ */
+public abstract class ForwardingUserDao implements UserDao {
+
+    protected final UserDao delegate;
+
+    protected ForwardingUserDao(UserDao delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public User save(User user) {
+        return delegate.save(user);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public User update(User user) {
+        return delegate.update(user);
+    }
+
+    @Override
+    public void delete(User user) {
+        delegate.delete(user);
+    }
+
+    @Override
+    public int deleteById(Long id) {
+        return delegate.deleteById(id);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public Optional<User> insertIfEmailAbsent(User user) {
+        return delegate.insertIfEmailAbsent(user);
+    }
+
+    @Override
+    public User upsertByEmail(User user) {
+        return delegate.upsertByEmail(user);
+    }
+
+    @Override
+    public Optional<User> updateFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        return delegate.updateFields(id, name, email, age, expectedVersion);
+    }
+
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        return delegate.findAllByIds(ids);
+    }
+
+    @Override
+    public List<User> findAllByEmails(Collection<String> emails) {
+        return delegate.findAllByEmails(emails);
+    }
+
+    @Override
+    public BatchResult<User> createUsers(Collection<User> users, int batchSize) {
+        return delegate.createUsers(users, batchSize);
+    }
+
+    @Override
+    public BatchResult<User> importUsers(List<User> users, int batchSize) {
+        return delegate.importUsers(users, batchSize);
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<User> findRecent(int limit) {
+        return delegate.findRecent(limit);
+    }
+
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public Optional<UserView> findViewById(Long id) {
+        return delegate.findViewById(id);
+    }
+
+    @Override
+    public List<UserView> findViewPage(Long afterId, int limit) {
+        return delegate.findViewPage(afterId, limit);
+    }
+
+    @Override
+    public List<UserView> findRecentViews(int limit) {
+        return delegate.findRecentViews(limit);
+    }
+
+    @Override
+    public List<UserView> search(UserQuery query) {
+        return delegate.search(query);
+    }
+
+    @Override
+    public long count(UserQuery query) {
+        return delegate.count(query);
+    }
+}
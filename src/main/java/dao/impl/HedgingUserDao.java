@@ -0,0 +1,379 @@
+package dao.impl;
+
+import dao.UserDao;
+import models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.LatencyHistogram;
+import util.UnitOfWork;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Hedged findById/findByEmail: when the delegate has not answered within the configured latency
+ * percentile of recent lookups, the same lookup is sent to an alternate UserDao (another datasource)
+ * and whichever answers first wins. The other attempt is cancelled; JDBC drivers generally ignore the
+ * interrupt, so in practice the loser finishes in the background and its result is dropped.
+ * <p>
+ * Hedges are capped by a budget: at most {@code budgetPercent} of lookups may be hedged (with a small
+ * burst allowance), so a slow database does not get twice the load. Lookups inside a
+ * {@link UnitOfWork} are not hedged, since the worker threads cannot join it.
+ * <p>
+ * The delegate's attempt runs on a worker thread, so the caller can return the alternate's answer while
+ * that attempt is still blocked in JDBC. When no hedge could be sent anyway (the budget is used up) the
+ * lookup runs on the caller's thread. When every worker is busy it runs there too, unhedged, and is
+ * counted by {@link #getSaturatedCount()}.
+ */
+public class HedgingUserDao extends ForwardingUserDao implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingUserDao.class);
+    // the delay is recomputed from the latency histogram every this many lookups
+    private static final int DELAY_REFRESH_INTERVAL = 64;
+    private static final int MIN_SAMPLES = 100;
+    // the histogram only covers the latest lookups: it is replaced once it holds this many
+    private static final int WINDOW_SAMPLES = 1_024;
+    private static final long BUDGET_UNIT = 1_000;
+    private static final long BUDGET_BURST = 10 * BUDGET_UNIT;
+
+    private final UserDao alternate;
+    private final Settings settings;
+    private final ThreadPoolExecutor workers;
+    private final AtomicReference<LatencyHistogram> latency = new AtomicReference<>(new LatencyHistogram());
+    private volatile long hedgeDelayNanos;
+    // hedges allowed, in thousandths of a hedge; every lookup earns budgetPercent * 10
+    private final AtomicLong budget = new AtomicLong(BUDGET_BURST);
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    private final LongAdder saturated = new LongAdder();
+
+    public HedgingUserDao(UserDao delegate, UserDao alternate, Settings settings) {
+        super(delegate);
+        this.alternate = alternate;
+        this.settings = settings;
+        this.hedgeDelayNanos = settings.getMaxDelay().toNanos();
+        AtomicInteger threadNumber = new AtomicInteger();
+        // no queue: when every worker is busy the lookup runs on the caller's thread, unhedged
+        this.workers = new ThreadPoolExecutor(0, settings.getThreads(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "user-hedged-read-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return hedged(dao -> dao.findById(id));
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return hedged(dao -> dao.findByEmail(email));
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return how many hedged lookups were answered first by the alternate
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * @return how many lookups were slow enough to hedge but were not, because the budget was used up
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhausted.sum();
+    }
+
+    /**
+     * @return how many lookups ran unhedged, or without their hedge, because every worker thread was busy
+     */
+    public long getSaturatedCount() {
+        return saturated.sum();
+    }
+
+    public Duration getHedgeDelay() {
+        return Duration.ofNanos(hedgeDelayNanos);
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingUserDao{" +
+                "lookups=" + getLookupCount() +
+                ", hedges=" + getHedgeCount() +
+                ", hedgeWins=" + getHedgeWinCount() +
+                ", budgetExhausted=" + getBudgetExhaustedCount() +
+                ", saturated=" + getSaturatedCount() +
+                ", delayMs=" + getHedgeDelay().toMillis() +
+                '}';
+    }
+
+    private <T> T hedged(Function<UserDao, T> lookup) {
+        if (UnitOfWork.isActive()) {
+            return lookup.apply(delegate);
+        }
+        lookups.increment();
+        earnBudget();
+        long start = System.nanoTime();
+        if (budget.get() < BUDGET_UNIT) {
+            // no hedge could be sent, so there is nothing to wait for on another thread
+            return unhedged(lookup, start);
+        }
+
+        Race<T> race = new Race<>();
+        Future<?> first;
+        try {
+            first = workers.submit(() -> race.attempt(lookup, delegate, false));
+        } catch (RejectedExecutionException e) {
+            saturated.increment();
+            return lookup.apply(delegate);
+        }
+        Future<?> second = null;
+        try {
+            if (!race.await(hedgeDelayNanos)) {
+                if (spendBudget()) {
+                    second = submitHedge(race, lookup);
+                } else {
+                    budgetExhausted.increment();
+                }
+            }
+            T result = race.result(second != null ? 2 : 1);
+            if (race.isAnsweredByAlternate()) {
+                hedgeWins.increment();
+            }
+            record(System.nanoTime() - start);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for user lookup", e);
+        } finally {
+            first.cancel(true);
+            if (second != null) {
+                second.cancel(true);
+            }
+        }
+    }
+
+    private <T> T unhedged(Function<UserDao, T> lookup, long start) {
+        T result = lookup.apply(delegate);
+        long elapsed = System.nanoTime() - start;
+        if (elapsed > hedgeDelayNanos) {
+            budgetExhausted.increment();
+        }
+        record(elapsed);
+        return result;
+    }
+
+    private <T> Future<?> submitHedge(Race<T> race, Function<UserDao, T> lookup) {
+        try {
+            Future<?> future = workers.submit(() -> race.attempt(lookup, alternate, true));
+            hedges.increment();
+            return future;
+        } catch (RejectedExecutionException e) {
+            // no hedge was sent, so give back what spendBudget took
+            budget.getAndUpdate(current -> Math.min(BUDGET_BURST, current + BUDGET_UNIT));
+            saturated.increment();
+            return null;
+        }
+    }
+
+    void record(long nanos) {
+        LatencyHistogram window = latency.get();
+        window.record(nanos);
+        long count = window.getCount();
+        boolean full = count >= WINDOW_SAMPLES;
+        if (count >= MIN_SAMPLES && (full || count % DELAY_REFRESH_INTERVAL == 0)) {
+            long percentile = window.snapshot().getValueAtPercentile(settings.getPercentile());
+            hedgeDelayNanos = Math.max(settings.getMinDelay().toNanos(), Math.min(settings.getMaxDelay().toNanos(), percentile));
+            if (full) {
+                // the delay keeps this window's value until the next one has MIN_SAMPLES lookups
+                latency.compareAndSet(window, new LatencyHistogram());
+            }
+        }
+    }
+
+    private void earnBudget() {
+        long earned = (long) (settings.getBudgetPercent() * BUDGET_UNIT / 100);
+        budget.getAndUpdate(current -> Math.min(BUDGET_BURST, current + earned));
+    }
+
+    private boolean spendBudget() {
+        while (true) {
+            long current = budget.get();
+            if (current < BUDGET_UNIT) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - BUDGET_UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The attempts of one lookup: the first answer wins, a failure only counts once every attempt sent
+     * has failed.
+     */
+    private static final class Race<T> {
+
+        private T result;
+        private boolean answered;
+        private boolean answeredByAlternate;
+        private Throwable failure;
+        private int failures;
+
+        void attempt(Function<UserDao, T> lookup, UserDao dao, boolean alternate) {
+            T value;
+            try {
+                value = lookup.apply(dao);
+            } catch (Throwable e) {
+                failed(e);
+                return;
+            }
+            answered(value, alternate);
+        }
+
+        /**
+         * @return whether an attempt answered or failed within {@code nanos}
+         */
+        synchronized boolean await(long nanos) throws InterruptedException {
+            long deadline = System.nanoTime() + nanos;
+            while (!answered && failures == 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+
+        /**
+         * Waits for the first answer, or rethrows the first failure once all {@code attempts} have failed.
+         */
+        synchronized T result(int attempts) throws InterruptedException {
+            while (!answered && failures < attempts) {
+                wait();
+            }
+            if (answered) {
+                return result;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new IllegalStateException("Hedged lookup failed", failure);
+        }
+
+        synchronized boolean isAnsweredByAlternate() {
+            return answeredByAlternate;
+        }
+
+        private synchronized void answered(T value, boolean alternate) {
+            if (!answered) {
+                answered = true;
+                result = value;
+                answeredByAlternate = alternate;
+                notifyAll();
+            }
+        }
+
+        private synchronized void failed(Throwable e) {
+            if (failure == null) {
+                failure = e;
+            } else {
+                logger.debug("Hedged lookup attempt failed as well: {}", e.getMessage());
+            }
+            failures++;
+            notifyAll();
+        }
+    }
+
+    public static class Settings {
+
+        private final double percentile;
+        private final Duration minDelay;
+        private final Duration maxDelay;
+        private final double budgetPercent;
+        private final int threads;
+
+        /**
+         * @param percentile    latency percentile of recent lookups after which a hedge is sent, e.g. 95
+         * @param minDelay      lower bound of the hedge delay
+         * @param maxDelay      upper bound of the hedge delay, also used until enough lookups were measured
+         * @param budgetPercent maximum share of lookups that may be hedged
+         * @param threads       worker threads running the attempts
+         */
+        public Settings(double percentile, Duration minDelay, Duration maxDelay, double budgetPercent, int threads) {
+            if (percentile <= 0 || percentile >= 100) {
+                throw new IllegalArgumentException("Hedge percentile must be between 0 and 100");
+            }
+            if (minDelay == null || maxDelay == null || minDelay.isNegative() || maxDelay.compareTo(minDelay) < 0) {
+                throw new IllegalArgumentException("Hedge delays must satisfy 0 <= min <= max");
+            }
+            if (budgetPercent < 0 || budgetPercent > 100) {
+                throw new IllegalArgumentException("Hedge budget must be between 0 and 100 percent");
+            }
+            if (threads <= 0) {
+                throw new IllegalArgumentException("Hedge worker threads must be positive");
+            }
+            this.percentile = percentile;
+            this.minDelay = minDelay;
+            this.maxDelay = maxDelay;
+            this.budgetPercent = budgetPercent;
+            this.threads = threads;
+        }
+
+        public static Settings defaults() {
+            return new Settings(95, Duration.ofMillis(5), Duration.ofMillis(200), 5, 32);
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public double getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+    }
+}
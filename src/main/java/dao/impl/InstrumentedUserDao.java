@@ -0,0 +1,202 @@
+package dao.impl;
+
+import dao.BatchResult;
+import dao.UserDao;
+import dao.UserQuery;
+import models.User;
+import models.UserView;
+import util.OperationMetrics;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Records call count, error count and latency of every UserDao (and GenericDao) operation in
+ * {@link OperationMetrics}. For {@link #streamAll(int)} the latency covers the whole stream,
+ * from opening the cursor until the stream is closed.
+ */
+public class InstrumentedUserDao extends ForwardingUserDao {
+
+    private final OperationMetrics metrics;
+
+    private final OperationMetrics.Operation save;
+    private final OperationMetrics.Operation findById;
+    private final OperationMetrics.Operation findAll;
+    private final OperationMetrics.Operation update;
+    private final OperationMetrics.Operation delete;
+    private final OperationMetrics.Operation deleteById;
+    private final OperationMetrics.Operation findByEmail;
+    private final OperationMetrics.Operation insertIfEmailAbsent;
+    private final OperationMetrics.Operation upsertByEmail;
+    private final OperationMetrics.Operation updateFields;
+    private final OperationMetrics.Operation findAllByIds;
+    private final OperationMetrics.Operation findAllByEmails;
+    private final OperationMetrics.Operation createUsers;
+    private final OperationMetrics.Operation importUsers;
+    private final OperationMetrics.Operation findPage;
+    private final OperationMetrics.Operation findRecent;
+    private final OperationMetrics.Operation streamAll;
+    private final OperationMetrics.Operation findViewById;
+    private final OperationMetrics.Operation findViewPage;
+    private final OperationMetrics.Operation findRecentViews;
+    private final OperationMetrics.Operation search;
+    private final OperationMetrics.Operation count;
+
+    public InstrumentedUserDao(UserDao delegate) {
+        this(delegate, new OperationMetrics("UserDao"));
+    }
+
+    public InstrumentedUserDao(UserDao delegate, OperationMetrics metrics) {
+        super(delegate);
+        this.metrics = metrics;
+        this.save = metrics.operation("save");
+        this.findById = metrics.operation("findById");
+        this.findAll = metrics.operation("findAll");
+        this.update = metrics.operation("update");
+        this.delete = metrics.operation("delete");
+        this.deleteById = metrics.operation("deleteById");
+        this.findByEmail = metrics.operation("findByEmail");
+        this.insertIfEmailAbsent = metrics.operation("insertIfEmailAbsent");
+        this.upsertByEmail = metrics.operation("upsertByEmail");
+        this.updateFields = metrics.operation("updateFields");
+        this.findAllByIds = metrics.operation("findAllByIds");
+        this.findAllByEmails = metrics.operation("findAllByEmails");
+        this.createUsers = metrics.operation("createUsers");
+        this.importUsers = metrics.operation("importUsers");
+        this.findPage = metrics.operation("findPage");
+        this.findRecent = metrics.operation("findRecent");
+        this.streamAll = metrics.operation("streamAll");
+        this.findViewById = metrics.operation("findViewById");
+        this.findViewPage = metrics.operation("findViewPage");
+        this.findRecentViews = metrics.operation("findRecentViews");
+        this.search = metrics.operation("search");
+        this.count = metrics.operation("count");
+    }
+
+    public OperationMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public User save(User user) {
+        return save.call(() -> delegate.save(user));
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return findById.call(() -> delegate.findById(id));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return findAll.call(delegate::findAll);
+    }
+
+    @Override
+    public User update(User user) {
+        return update.call(() -> delegate.update(user));
+    }
+
+    @Override
+    public void delete(User user) {
+        delete.run(() -> delegate.delete(user));
+    }
+
+    @Override
+    public int deleteById(Long id) {
+        return deleteById.call(() -> delegate.deleteById(id));
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return findByEmail.call(() -> delegate.findByEmail(email));
+    }
+
+    @Override
+    public Optional<User> insertIfEmailAbsent(User user) {
+        return insertIfEmailAbsent.call(() -> delegate.insertIfEmailAbsent(user));
+    }
+
+    @Override
+    public User upsertByEmail(User user) {
+        return upsertByEmail.call(() -> delegate.upsertByEmail(user));
+    }
+
+    @Override
+    public Optional<User> updateFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        return updateFields.call(() -> delegate.updateFields(id, name, email, age, expectedVersion));
+    }
+
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        return findAllByIds.call(() -> delegate.findAllByIds(ids));
+    }
+
+    @Override
+    public List<User> findAllByEmails(Collection<String> emails) {
+        return findAllByEmails.call(() -> delegate.findAllByEmails(emails));
+    }
+
+    @Override
+    public BatchResult<User> createUsers(Collection<User> users, int batchSize) {
+        return createUsers.call(() -> delegate.createUsers(users, batchSize));
+    }
+
+    @Override
+    public BatchResult<User> importUsers(List<User> users, int batchSize) {
+        return importUsers.call(() -> delegate.importUsers(users, batchSize));
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        return findPage.call(() -> delegate.findPage(afterId, limit));
+    }
+
+    @Override
+    public List<User> findRecent(int limit) {
+        return findRecent.call(() -> delegate.findRecent(limit));
+    }
+
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        long start = streamAll.start();
+        try {
+            return delegate.streamAll(fetchSize).onClose(() -> streamAll.record(start, false));
+        } catch (RuntimeException | Error e) {
+            streamAll.record(start, true);
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<UserView> findViewById(Long id) {
+        return findViewById.call(() -> delegate.findViewById(id));
+    }
+
+    @Override
+    public List<UserView> findViewPage(Long afterId, int limit) {
+        return findViewPage.call(() -> delegate.findViewPage(afterId, limit));
+    }
+
+    @Override
+    public List<UserView> findRecentViews(int limit) {
+        return findRecentViews.call(() -> delegate.findRecentViews(limit));
+    }
+
+    @Override
+    public List<UserView> search(UserQuery query) {
+        return search.call(() -> delegate.search(query));
+    }
+
+    @Override
+    public long count(UserQuery query) {
+        return count.call(() -> delegate.count(query));
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentedUserDao{" + delegate + '}';
+    }
+}
@@ -0,0 +1,294 @@
+package dao.impl;
+
+import dao.BatchResult;
+import dao.UserDao;
+import dao.UserQuery;
+import models.User;
+import models.UserView;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.UnitOfWork;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Sends writes to the primary UserDao and spreads reads round-robin over read-only replicas.
+ * <p>
+ * Reads stay on the primary when:
+ * <ul>
+ *     <li>a {@link UnitOfWork} is active, since it is bound to the primary's Session;</li>
+ *     <li>{@code findById} finds the user in the primary's second-level cache (replicas have none);</li>
+ *     <li>the calling thread opted in with {@link #readYourWrites()} and wrote through this DAO within
+ *     the configured window, so it does not read a replica that has not caught up yet.</li>
+ * </ul>
+ * A read that fails on a replica is retried once on the primary.
+ */
+public class RoutingUserDao extends ForwardingUserDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingUserDao.class);
+
+    private final List<UserDao> replicas;
+    private final Cache primaryCache;
+    private final long readYourWritesNanos;
+    private final LongSupplier ticker;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<ReadYourWrites> readYourWrites = new ThreadLocal<>();
+
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder replicaFailures = new LongAdder();
+
+    /**
+     * @param primaryCache        the primary SessionFactory's second-level cache, or null if it has none
+     * @param readYourWritesWindow how long after a write an opted-in caller keeps reading from the primary
+     */
+    public RoutingUserDao(UserDao primary, List<UserDao> replicas, Cache primaryCache, Duration readYourWritesWindow) {
+        this(primary, replicas, primaryCache, readYourWritesWindow, System::nanoTime);
+    }
+
+    RoutingUserDao(UserDao primary, List<UserDao> replicas, Cache primaryCache, Duration readYourWritesWindow,
+                   LongSupplier ticker) {
+        super(primary);
+        if (readYourWritesWindow == null || readYourWritesWindow.isNegative()) {
+            throw new IllegalArgumentException("Read-your-writes window cannot be negative");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.primaryCache = primaryCache;
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Opts the calling thread in to reading its own writes until the returned scope is closed:
+     * reads made within the window after one of its writes go to the primary. Scopes can be nested.
+     */
+    public ReadYourWrites readYourWrites() {
+        ReadYourWrites scope = new ReadYourWrites(readYourWrites.get());
+        readYourWrites.set(scope);
+        return scope;
+    }
+
+    // Writes
+
+    @Override
+    public User save(User user) {
+        return write(() -> delegate.save(user));
+    }
+
+    @Override
+    public User update(User user) {
+        return write(() -> delegate.update(user));
+    }
+
+    @Override
+    public void delete(User user) {
+        write(() -> {
+            delegate.delete(user);
+            return null;
+        });
+    }
+
+    @Override
+    public int deleteById(Long id) {
+        return write(() -> delegate.deleteById(id));
+    }
+
+    @Override
+    public Optional<User> insertIfEmailAbsent(User user) {
+        return write(() -> delegate.insertIfEmailAbsent(user));
+    }
+
+    @Override
+    public User upsertByEmail(User user) {
+        return write(() -> delegate.upsertByEmail(user));
+    }
+
+    @Override
+    public Optional<User> updateFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        return write(() -> delegate.updateFields(id, name, email, age, expectedVersion));
+    }
+
+    @Override
+    public BatchResult<User> createUsers(Collection<User> users, int batchSize) {
+        return write(() -> delegate.createUsers(users, batchSize));
+    }
+
+    @Override
+    public BatchResult<User> importUsers(List<User> users, int batchSize) {
+        return write(() -> delegate.importUsers(users, batchSize));
+    }
+
+    // Reads
+
+    @Override
+    public Optional<User> findById(Long id) {
+        if (primaryCache != null && id != null && primaryCache.containsEntity(User.class, id)) {
+            primaryReads.increment();
+            return delegate.findById(id);
+        }
+        return read(dao -> dao.findById(id));
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return read(dao -> dao.findByEmail(email));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return read(UserDao::findAll);
+    }
+
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        return read(dao -> dao.findAllByIds(ids));
+    }
+
+    @Override
+    public List<User> findAllByEmails(Collection<String> emails) {
+        return read(dao -> dao.findAllByEmails(emails));
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        return read(dao -> dao.findPage(afterId, limit));
+    }
+
+    @Override
+    public List<User> findRecent(int limit) {
+        return read(dao -> dao.findRecent(limit));
+    }
+
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return read(dao -> dao.streamAll(fetchSize));
+    }
+
+    @Override
+    public Optional<UserView> findViewById(Long id) {
+        return read(dao -> dao.findViewById(id));
+    }
+
+    @Override
+    public List<UserView> findViewPage(Long afterId, int limit) {
+        return read(dao -> dao.findViewPage(afterId, limit));
+    }
+
+    @Override
+    public List<UserView> findRecentViews(int limit) {
+        return read(dao -> dao.findRecentViews(limit));
+    }
+
+    @Override
+    public List<UserView> search(UserQuery query) {
+        return read(dao -> dao.search(query));
+    }
+
+    @Override
+    public long count(UserQuery query) {
+        return read(dao -> dao.count(query));
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    public long getPrimaryReadCount() {
+        return primaryReads.sum();
+    }
+
+    public long getReplicaReadCount() {
+        return replicaReads.sum();
+    }
+
+    public long getReplicaFailureCount() {
+        return replicaFailures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingUserDao{" +
+                "replicas=" + getReplicaCount() +
+                ", primaryReads=" + getPrimaryReadCount() +
+                ", replicaReads=" + getReplicaReadCount() +
+                ", replicaFailures=" + getReplicaFailureCount() +
+                '}';
+    }
+
+    private <T> T write(Supplier<T> write) {
+        try {
+            return write.get();
+        } finally {
+            // also after a failure: a batch may have been partially written
+            ReadYourWrites scope = readYourWrites.get();
+            if (scope != null) {
+                scope.hasWritten = true;
+                scope.lastWriteAt = ticker.getAsLong();
+            }
+        }
+    }
+
+    private <T> T read(Function<UserDao, T> query) {
+        if (replicas.isEmpty() || UnitOfWork.isActive() || mustReadOwnWrites()) {
+            primaryReads.increment();
+            return query.apply(delegate);
+        }
+        UserDao replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+        try {
+            T result = query.apply(replica);
+            replicaReads.increment();
+            return result;
+        } catch (RuntimeException e) {
+            replicaFailures.increment();
+            logger.warn("Read from replica {} failed, retrying on the primary: {}", replica, e.getMessage());
+            primaryReads.increment();
+            return query.apply(delegate);
+        }
+    }
+
+    private boolean mustReadOwnWrites() {
+        ReadYourWrites scope = readYourWrites.get();
+        return scope != null && scope.hasWritten && ticker.getAsLong() - scope.lastWriteAt < readYourWritesNanos;
+    }
+
+    /**
+     * A caller's opt-in to read-your-writes consistency; see {@link #readYourWrites()}.
+     */
+    public class ReadYourWrites implements AutoCloseable {
+
+        private final ReadYourWrites outer;
+        private boolean hasWritten;
+        private long lastWriteAt;
+
+        private ReadYourWrites(ReadYourWrites outer) {
+            this.outer = outer;
+            if (outer != null && outer.hasWritten) {
+                this.hasWritten = true;
+                this.lastWriteAt = outer.lastWriteAt;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (outer != null && hasWritten) {
+                outer.hasWritten = true;
+                outer.lastWriteAt = Math.max(outer.lastWriteAt, lastWriteAt);
+            }
+            if (outer != null) {
+                readYourWrites.set(outer);
+            } else {
+                readYourWrites.remove();
+            }
+        }
+    }
+}
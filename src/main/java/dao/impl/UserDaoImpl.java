@@ -1,19 +1,63 @@
 package dao.impl;
 
+import dao.BatchResult;
 import dao.UserDao;
+import dao.UserQuery;
 import models.User;
+import models.UserView;
+import util.DaoQueryEvent;
 import util.HibernateUtil;
+import util.TransactionCommitEvent;
+import util.UnitOfWork;
+import org.hibernate.Cache;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.jdbc.spi.ResultSetReturn;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.query.Query;
+import org.hibernate.query.SelectionQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation of UserDao interface
@@ -21,20 +65,54 @@ import java.util.Optional;
 public class UserDaoImpl implements UserDao {
 
     private static final Logger logger = LoggerFactory.getLogger(UserDaoImpl.class);
+    // Keeps IN lists well below PostgreSQL's 32767 bind parameter limit and plan-cache friendly.
+    private static final int MAX_IN_PARAMETERS = 500;
+
+    private static final String INSERT_IF_EMAIL_ABSENT_SQL =
+            "INSERT INTO public.\"user\" (id, name, email, age, created_at, version) VALUES (?, ?, ?, ?, ?, 0) " +
+            "ON CONFLICT (email) DO NOTHING";
+    // H2 only accepts ON CONFLICT DO NOTHING without a conflict target.
+    private static final String INSERT_IF_EMAIL_ABSENT_H2_SQL =
+            "INSERT INTO public.\"user\" (id, name, email, age, created_at, version) VALUES (?, ?, ?, ?, ?, 0) " +
+            "ON CONFLICT DO NOTHING";
+    private static final String UPSERT_BY_EMAIL_SQL =
+            "INSERT INTO public.\"user\" (id, name, email, age, created_at, version) VALUES (?, ?, ?, ?, ?, 0) " +
+            "ON CONFLICT (email) DO UPDATE SET name = EXCLUDED.name, age = EXCLUDED.age, " +
+            "version = public.\"user\".version + 1 " +
+            "RETURNING id, created_at, version";
+    private static final String DELETE_BY_ID_SQL = "DELETE FROM public.\"user\" WHERE id = ?";
+    private static final String SELECT_VERSION_SQL = "SELECT version FROM public.\"user\" WHERE id = ?";
+    private static final String SELECT_VIEW_HQL =
+            "select new models.UserView(u.id, u.name, u.email, u.age, u.createdAt) from User u ";
+
+    private final SessionFactory sessionFactory;
+    // H2 (the embedded database used by the benchmarks) has no UPDATE ... RETURNING.
+    private final boolean returningViaDeltaTable;
+    private final String insertIfEmailAbsentSql;
+
+    public UserDaoImpl() {
+        this(HibernateUtil.getSessionFactory());
+    }
+
+    public UserDaoImpl(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        boolean h2 = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof H2Dialect;
+        this.returningViaDeltaTable = h2;
+        this.insertIfEmailAbsentSql = h2 ? INSERT_IF_EMAIL_ABSENT_H2_SQL : INSERT_IF_EMAIL_ABSENT_SQL;
+    }
 
     @Override
     public User save(User user) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            session.persist(user);
-            transaction.commit();
+        try {
+            write("save", session -> {
+                session.persist(user);
+                return user;
+            });
             logger.debug("User saved successfully: {}", user);
             return user;
         } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
             logger.error("Error saving user: {}", e.getMessage(), e);
             throw new RuntimeException("Error saving user", e);
         }
@@ -42,8 +120,8 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public Optional<User> findById(Long id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            User user = session.get(User.class, id);
+        try {
+            User user = read("findById", session -> session.get(User.class, id));
             logger.debug("Found user by id {}: {}", id, user);
             return Optional.ofNullable(user);
         } catch (Exception e) {
@@ -54,13 +132,15 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public List<User> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<User> cq = cb.createQuery(User.class);
-            Root<User> rootEntry = cq.from(User.class);
-            CriteriaQuery<User> all = cq.select(rootEntry);
-            Query<User> allQuery = session.createQuery(all);
-            List<User> users = allQuery.getResultList();
+        try {
+            List<User> users = read("findAll", session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<User> cq = cb.createQuery(User.class);
+                Root<User> rootEntry = cq.from(User.class);
+                CriteriaQuery<User> all = cq.select(rootEntry);
+                Query<User> allQuery = session.createQuery(all);
+                return allQuery.getResultList();
+            });
             logger.debug("Found {} users", users.size());
             return users;
         } catch (Exception e) {
@@ -70,18 +150,226 @@ public class UserDaoImpl implements UserDao {
     }
 
     @Override
-    public User update(User user) {
+    public List<User> findPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        try {
+            List<User> users = read("findPage", session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<User> cq = cb.createQuery(User.class);
+                Root<User> root = cq.from(User.class);
+                cq.select(root).orderBy(cb.asc(root.get("id")));
+                if (afterId != null) {
+                    cq.where(cb.greaterThan(root.get("id"), afterId));
+                }
+                return session.createQuery(cq)
+                        .setMaxResults(limit)
+                        .getResultList();
+            });
+            logger.debug("Found {} users after id {}", users.size(), afterId);
+            return users;
+        } catch (Exception e) {
+            logger.error("Error finding users page after id {}: {}", afterId, e.getMessage(), e);
+            throw new RuntimeException("Error finding users page", e);
+        }
+    }
+
+    @Override
+    public List<User> findRecent(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        try {
+            List<User> users = read("findRecent", session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<User> cq = cb.createQuery(User.class);
+                Root<User> root = cq.from(User.class);
+                cq.select(root).orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+                return session.createQuery(cq)
+                        .setMaxResults(limit)
+                        .getResultList();
+            });
+            logger.debug("Found {} most recent users", users.size());
+            return users;
+        } catch (Exception e) {
+            logger.error("Error finding {} most recent users: {}", limit, e.getMessage(), e);
+            throw new RuntimeException("Error finding most recent users", e);
+        }
+    }
+
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        // A StatelessSession keeps no persistence context, so rows are not retained after they are
+        // handed to the consumer. PostgreSQL only honours the fetch size inside a transaction.
+        DaoQueryEvent event = new DaoQueryEvent();
+        event.begin();
+        StatelessSession session = sessionFactory.openStatelessSession();
         Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try {
             transaction = session.beginTransaction();
-            session.merge(user);
-            transaction.commit();
-            logger.debug("User updated successfully: {}", user);
-            return user;
+            ScrollableResults<User> results = session
+                    .createSelectionQuery("from User u order by u.id", User.class)
+                    .setFetchSize(fetchSize)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+
+            Transaction streamTransaction = transaction;
+            long[] rows = {0};
+            Spliterator<User> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super User> action) {
+                    if (!results.next()) {
+                        return false;
+                    }
+                    rows[0]++;
+                    action.accept(results.get());
+                    return true;
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try {
+                    results.close();
+                    if (streamTransaction.isActive()) {
+                        TransactionCommitEvent.commit(streamTransaction, "streamAll");
+                    }
+                } finally {
+                    session.close();
+                    // the event spans the whole stream, until the caller closes it
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.method = "streamAll";
+                        event.rows = rows[0];
+                        event.successful = true;
+                        event.commit();
+                    }
+                }
+            });
         } catch (Exception e) {
-            if (transaction != null) {
+            if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            session.close();
+            logger.error("Error streaming users: {}", e.getMessage(), e);
+            throw new RuntimeException("Error streaming users", e);
+        }
+    }
+
+    @Override
+    public Optional<UserView> findViewById(Long id) {
+        try {
+            UserView view = project("findViewById", session -> session
+                    .createSelectionQuery(SELECT_VIEW_HQL + "where u.id = :id", UserView.class)
+                    .setParameter("id", id)
+                    .uniqueResult());
+            logger.debug("Found user view by id {}: {}", id, view);
+            return Optional.ofNullable(view);
+        } catch (Exception e) {
+            logger.error("Error finding user view by id {}: {}", id, e.getMessage(), e);
+            throw new RuntimeException("Error finding user view by id", e);
+        }
+    }
+
+    @Override
+    public List<UserView> findViewPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        try {
+            List<UserView> views = project("findViewPage", session -> {
+                SelectionQuery<UserView> query = session.createSelectionQuery(SELECT_VIEW_HQL
+                        + (afterId != null ? "where u.id > :afterId " : "") + "order by u.id", UserView.class);
+                if (afterId != null) {
+                    query.setParameter("afterId", afterId);
+                }
+                return query.setMaxResults(limit).getResultList();
+            });
+            logger.debug("Found {} user views after id {}", views.size(), afterId);
+            return views;
+        } catch (Exception e) {
+            logger.error("Error finding user views page after id {}: {}", afterId, e.getMessage(), e);
+            throw new RuntimeException("Error finding user views page", e);
+        }
+    }
+
+    @Override
+    public List<UserView> findRecentViews(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        try {
+            List<UserView> views = project("findRecentViews", session -> session
+                    .createSelectionQuery(SELECT_VIEW_HQL + "order by u.createdAt desc, u.id desc", UserView.class)
+                    .setMaxResults(limit)
+                    .getResultList());
+            logger.debug("Found {} most recent user views", views.size());
+            return views;
+        } catch (Exception e) {
+            logger.error("Error finding {} most recent user views: {}", limit, e.getMessage(), e);
+            throw new RuntimeException("Error finding most recent user views", e);
+        }
+    }
+
+    @Override
+    public List<UserView> search(UserQuery query) {
+        try {
+            List<UserView> views = project("search", session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<UserView> cq = cb.createQuery(UserView.class);
+                Root<User> root = cq.from(User.class);
+                List<Predicate> predicates = filters(cb, root, query);
+                if (query.getAfterId() != null) {
+                    predicates.add(after(cb, root, query));
+                }
+                Path<Object> sorted = root.get(query.getSort().getAttribute());
+                Path<Object> id = root.get("id");
+                cq.select(cb.construct(UserView.class, root.get("id"), root.get("name"), root.get("email"),
+                                root.get("age"), root.get("createdAt")))
+                        .where(predicates.toArray(new Predicate[0]));
+                if (query.getSort() == UserQuery.Sort.ID) {
+                    cq.orderBy(query.isDescending() ? cb.desc(id) : cb.asc(id));
+                } else if (query.isDescending()) {
+                    cq.orderBy(cb.desc(sorted), cb.desc(id));
+                } else {
+                    cq.orderBy(cb.asc(sorted), cb.asc(id));
+                }
+                return session.createQuery(cq)
+                        .setMaxResults(query.getLimit())
+                        .getResultList();
+            });
+            logger.debug("Found {} users for {}", views.size(), query);
+            return views;
+        } catch (Exception e) {
+            logger.error("Error searching users for {}: {}", query, e.getMessage(), e);
+            throw new RuntimeException("Error searching users", e);
+        }
+    }
+
+    @Override
+    public long count(UserQuery query) {
+        try {
+            Long count = project("count", session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+                Root<User> root = cq.from(User.class);
+                cq.select(cb.count(root)).where(filters(cb, root, query).toArray(new Predicate[0]));
+                return session.createQuery(cq).getSingleResult();
+            });
+            logger.debug("Counted {} users for {}", count, query);
+            return count;
+        } catch (Exception e) {
+            logger.error("Error counting users for {}: {}", query, e.getMessage(), e);
+            throw new RuntimeException("Error counting users", e);
+        }
+    }
+
+    @Override
+    public User update(User user) {
+        try {
+            write("update", session -> session.merge(user));
+            logger.debug("User updated successfully: {}", user);
+            return user;
+        } catch (Exception e) {
             logger.error("Error updating user: {}", e.getMessage(), e);
             throw new RuntimeException("Error updating user", e);
         }
@@ -89,40 +377,33 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public void delete(User user) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            session.remove(user);
-            transaction.commit();
+        try {
+            write("delete", session -> {
+                session.remove(user);
+                return null;
+            });
             logger.debug("User deleted successfully: {}", user);
         } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
             logger.error("Error deleting user: {}", e.getMessage(), e);
             throw new RuntimeException("Error deleting user", e);
         }
     }
 
     @Override
-    public boolean deleteById(Long id) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            Optional<User> user = findById(id);
-            if (user.isPresent()) {
-                transaction = session.beginTransaction();
-                session.remove(user.get());
-                transaction.commit();
+    public int deleteById(Long id) {
+        try {
+            int deleted = write("deleteById", session -> executeStatement(session, DELETE_BY_ID_SQL, (statement, results) -> {
+                statement.setLong(1, id);
+                return results.executeUpdate(statement, DELETE_BY_ID_SQL);
+            }));
+            if (deleted > 0) {
+                evictAfterCompletion(id);
                 logger.debug("User with id {} deleted successfully", id);
-                return true;
             } else {
                 logger.debug("User with id {} not found for deletion", id);
-                return false;
             }
+            return deleted;
         } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
             logger.error("Error deleting user by id {}: {}", id, e.getMessage(), e);
             throw new RuntimeException("Error deleting user by id", e);
         }
@@ -130,13 +411,17 @@ public class UserDaoImpl implements UserDao {
 
     @Override
     public User findByEmail(String email) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<User> cq = cb.createQuery(User.class);
-            Root<User> root = cq.from(User.class);
-            cq.select(root).where(cb.equal(root.get("email"), email));
-            Query<User> query = session.createQuery(cq);
-            User user = query.uniqueResult();
+        try {
+            User user = read("findByEmail", session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<User> cq = cb.createQuery(User.class);
+                Root<User> root = cq.from(User.class);
+                cq.select(root).where(cb.equal(root.get("email"), email));
+                Query<User> query = session.createQuery(cq)
+                        .setCacheable(true)
+                        .setCacheRegion(User.BY_EMAIL_QUERY_CACHE_REGION);
+                return query.uniqueResult();
+            });
             logger.debug("Found user by email {}: {}", email, user);
             return user;
         } catch (Exception e) {
@@ -144,4 +429,617 @@ public class UserDaoImpl implements UserDao {
             throw new RuntimeException("Error finding user by email", e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Optional<User> insertIfEmailAbsent(User user) {
+        try {
+            boolean inserted = write("insertIfEmailAbsent", session -> {
+                Long id = nextId(session, user);
+                int rows = executeStatement(session, insertIfEmailAbsentSql, (statement, results) -> {
+                    bindInsert(statement, id, user);
+                    return results.executeUpdate(statement, insertIfEmailAbsentSql);
+                });
+                if (rows == 1) {
+                    user.setId(id);
+                    user.setVersion(0L);
+                }
+                return rows == 1;
+            });
+            // a cached "no such email" query result would now be wrong
+            evictAfterCompletion(null);
+            logger.debug("Insert of user with email {} {}", user.getEmail(), inserted ? "succeeded" : "skipped, email exists");
+            return inserted ? Optional.of(user) : Optional.empty();
+        } catch (Exception e) {
+            logger.error("Error inserting user: {}", e.getMessage(), e);
+            throw new RuntimeException("Error inserting user", e);
+        }
+    }
+
+    @Override
+    public User upsertByEmail(User user) {
+        try {
+            write("upsertByEmail", session -> {
+                Long id = nextId(session, user);
+                return executeStatement(session, UPSERT_BY_EMAIL_SQL, (statement, results) -> {
+                    bindInsert(statement, id, user);
+                    ResultSet rs = results.extract(statement, UPSERT_BY_EMAIL_SQL);
+                    rs.next();
+                    user.setId(rs.getLong("id"));
+                    user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                    user.setVersion(rs.getLong("version"));
+                    return user;
+                });
+            });
+            evictAfterCompletion(user.getId());
+            logger.debug("User upserted successfully: {}", user);
+            return user;
+        } catch (Exception e) {
+            logger.error("Error upserting user: {}", e.getMessage(), e);
+            throw new RuntimeException("Error upserting user", e);
+        }
+    }
+
+    @Override
+    public Optional<User> updateFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        List<String> assignments = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        if (name != null) {
+            assignments.add("name = ?");
+            values.add(name);
+        }
+        if (email != null) {
+            assignments.add("email = ?");
+            values.add(email);
+        }
+        if (age != null) {
+            assignments.add("age = ?");
+            values.add(age);
+        }
+        assignments.add("version = version + 1");
+        values.add(id);
+        String sql = "UPDATE public.\"user\" SET " + String.join(", ", assignments) + " WHERE id = ?";
+        if (expectedVersion != null) {
+            sql += " AND version = ?";
+            values.add(expectedVersion);
+        }
+        String updateSql = returning(sql, "id, name, email, age, created_at, version");
+
+        Optional<User> updated;
+        try {
+            updated = write("updateFields", session -> {
+                Optional<User> user = executeStatement(session, updateSql, (statement, results) -> {
+                    for (int i = 0; i < values.size(); i++) {
+                        statement.setObject(i + 1, values.get(i));
+                    }
+                    ResultSet rs = results.extract(statement, updateSql);
+                    return rs.next() ? Optional.of(mapUser(rs)) : Optional.<User>empty();
+                });
+                if (user.isEmpty() && expectedVersion != null) {
+                    checkVersion(session, id, expectedVersion);
+                }
+                return user;
+            });
+        } catch (OptimisticLockException e) {
+            logger.warn("Stale update of user {}: {}", id, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error updating user {}: {}", id, e.getMessage(), e);
+            throw new RuntimeException("Error updating user", e);
+        }
+        if (updated.isPresent()) {
+            evictAfterCompletion(id);
+            logger.debug("User updated successfully: {}", updated.get());
+        } else {
+            logger.debug("User with id {} not found for update", id);
+        }
+        return updated;
+    }
+
+    @Override
+    public List<User> findAllByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try {
+            List<User> loaded = read("findAllByIds", session -> session.byMultipleIds(User.class)
+                    .withBatchSize(MAX_IN_PARAMETERS)
+                    .multiLoad(new ArrayList<>(new LinkedHashSet<>(ids))));
+            List<User> users = new ArrayList<>(loaded.size());
+            for (User user : loaded) {
+                if (user != null) {
+                    users.add(user);
+                }
+            }
+            logger.debug("Found {} of {} users by id", users.size(), ids.size());
+            return users;
+        } catch (Exception e) {
+            logger.error("Error finding users by ids: {}", e.getMessage(), e);
+            throw new RuntimeException("Error finding users by ids", e);
+        }
+    }
+
+    @Override
+    public List<User> findAllByEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return List.of();
+        }
+        try {
+            List<String> distinct = new ArrayList<>(new LinkedHashSet<>(emails));
+            List<User> users = read("findAllByEmails", session -> {
+                List<User> found = new ArrayList<>(distinct.size());
+                for (int from = 0; from < distinct.size(); from += MAX_IN_PARAMETERS) {
+                    List<String> chunk = distinct.subList(from, Math.min(from + MAX_IN_PARAMETERS, distinct.size()));
+                    found.addAll(session.createSelectionQuery("from User u where u.email in :emails", User.class)
+                            .setParameter("emails", chunk)
+                            .getResultList());
+                }
+                return found;
+            });
+            logger.debug("Found {} of {} users by email", users.size(), emails.size());
+            return users;
+        } catch (Exception e) {
+            logger.error("Error finding users by emails: {}", e.getMessage(), e);
+            throw new RuntimeException("Error finding users by emails", e);
+        }
+    }
+
+    @Override
+    public BatchResult<User> createUsers(Collection<User> users, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+
+        BatchResult<User> result = new BatchResult<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<User> chunk = new ArrayList<>(batchSize);
+        for (User user : users) {
+            if (!seenEmails.add(user.getEmail())) {
+                result.addFailure(user, "User with email " + user.getEmail() + " appears more than once in the batch");
+                continue;
+            }
+            chunk.add(user);
+            if (chunk.size() == batchSize) {
+                saveChunk(chunk, batchSize, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, batchSize, result);
+        }
+
+        logger.debug("Batch insert finished: {} saved, {} failed",
+                result.getSaved().size(), result.getFailures().size());
+        return result;
+    }
+
+    @Override
+    public BatchResult<User> importUsers(List<User> users, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        BatchResult<User> result = new BatchResult<>();
+        List<User> unique = new ArrayList<>(users.size());
+        Set<String> seenEmails = new HashSet<>();
+        for (User user : users) {
+            if (seenEmails.add(user.getEmail())) {
+                unique.add(user);
+            } else {
+                result.addFailure(user, "User with email " + user.getEmail() + " appears more than once in the batch");
+            }
+        }
+        if (unique.isEmpty()) {
+            return result;
+        }
+
+        try {
+            result.addAll(traced("importUsers", () -> insertStateless(unique, batchSize)));
+        } catch (RuntimeException e) {
+            logger.warn("Stateless insert of {} users failed, retrying row by row: {}", unique.size(), e.getMessage());
+            for (User user : unique) {
+                user.setId(null);
+                try {
+                    Optional<User> inserted = insertIfEmailAbsent(user);
+                    if (inserted.isPresent()) {
+                        result.addSaved(inserted.get());
+                    } else {
+                        result.addFailure(user, "User with email " + user.getEmail() + " already exists");
+                    }
+                } catch (RuntimeException rowError) {
+                    user.setId(null);
+                    result.addFailure(user, rowError.getMessage());
+                }
+            }
+        }
+        // a cached "no such email" query result would now be wrong
+        evictAfterCompletion(null);
+        return result;
+    }
+
+    /**
+     * Inserts the users through a StatelessSession, in JDBC batches and one transaction: no persistence
+     * context, no dirty checking and no second-level cache puts. Emails that already exist are rejected
+     * up front with IN queries.
+     */
+    private BatchResult<User> insertStateless(List<User> users, int batchSize) {
+        BatchResult<User> result = new BatchResult<>();
+        Transaction transaction = null;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(batchSize);
+            transaction = session.beginTransaction();
+
+            Set<String> existingEmails = new HashSet<>();
+            for (int from = 0; from < users.size(); from += MAX_IN_PARAMETERS) {
+                List<String> emails = new ArrayList<>();
+                for (User user : users.subList(from, Math.min(from + MAX_IN_PARAMETERS, users.size()))) {
+                    emails.add(user.getEmail());
+                }
+                existingEmails.addAll(session
+                        .createSelectionQuery("select u.email from User u where u.email in :emails", String.class)
+                        .setParameter("emails", emails)
+                        .getResultList());
+            }
+
+            for (User user : users) {
+                if (existingEmails.contains(user.getEmail())) {
+                    result.addFailure(user, "User with email " + user.getEmail() + " already exists");
+                } else {
+                    session.insert(user);
+                    result.addSaved(user);
+                }
+            }
+            TransactionCommitEvent.commit(transaction, "importUsers");
+            return result;
+        } catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) {
+                try {
+                    transaction.rollback();
+                } catch (RuntimeException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Inserts one chunk as a single JDBC batch in its own transaction. Emails that already exist are
+     * rejected up front with one IN query; if the batch still fails (e.g. a concurrent insert won the
+     * race on the unique constraint) the chunk is rolled back and retried row by row so only the
+     * offending rows are reported as failures.
+     */
+    private void saveChunk(List<User> chunk, int batchSize, BatchResult<User> result) {
+        BatchResult<User> chunkResult = new BatchResult<>();
+        DaoQueryEvent event = new DaoQueryEvent();
+        event.begin();
+        Transaction transaction = null;
+        Session session = sessionFactory.openSession();
+        try {
+            session.setJdbcBatchSize(batchSize);
+            transaction = session.beginTransaction();
+
+            List<String> emails = new ArrayList<>(chunk.size());
+            for (User user : chunk) {
+                emails.add(user.getEmail());
+            }
+            Set<String> existingEmails = new HashSet<>(session
+                    .createSelectionQuery("select u.email from User u where u.email in :emails", String.class)
+                    .setParameter("emails", emails)
+                    .getResultList());
+
+            for (User user : chunk) {
+                if (existingEmails.contains(user.getEmail())) {
+                    chunkResult.addFailure(user, "User with email " + user.getEmail() + " already exists");
+                } else {
+                    session.persist(user);
+                    chunkResult.addSaved(user);
+                }
+            }
+            TransactionCommitEvent.commit(transaction, "createUsers");
+            result.addAll(chunkResult);
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = "createUsers";
+                event.rows = chunkResult.getSaved().size();
+                event.successful = true;
+                event.commit();
+            }
+        } catch (Exception e) {
+            try {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+            } catch (RuntimeException rollbackError) {
+                e.addSuppressed(rollbackError);
+            } finally {
+                session.close();
+            }
+            logger.warn("Batch insert of {} users failed, retrying row by row: {}", chunk.size(), e.getMessage());
+            for (User user : chunk) {
+                user.setId(null);
+                try {
+                    result.addSaved(save(user));
+                } catch (Exception rowError) {
+                    user.setId(null);
+                    result.addFailure(user, isConstraintViolation(rowError)
+                            ? "User with email " + user.getEmail() + " already exists"
+                            : rowError.getMessage());
+                }
+            }
+        } finally {
+            if (session.isOpen()) {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * Runs read-only work in the unit of work bound to this thread, or in a short-lived Session.
+     * The short-lived Session loads entities read-only: they are detached as soon as it closes, so
+     * Hibernate keeps no snapshot of them for dirty checking.
+     */
+    private <T> T read(String method, Function<Session, T> work) {
+        return traced(method, () -> {
+            Optional<Session> current = UnitOfWork.currentSession(sessionFactory);
+            if (current.isPresent()) {
+                return work.apply(current.get());
+            }
+            try (Session session = sessionFactory.openSession()) {
+                session.setDefaultReadOnly(true);
+                return work.apply(session);
+            }
+        });
+    }
+
+    /**
+     * Runs a projection query in the unit of work bound to this thread (so it sees its pending
+     * changes), or in a StatelessSession that has no persistence context at all.
+     */
+    private <T> T project(String method, Function<SharedSessionContract, T> work) {
+        return traced(method, () -> {
+            Optional<Session> current = UnitOfWork.currentSession(sessionFactory);
+            if (current.isPresent()) {
+                return work.apply(current.get());
+            }
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                return work.apply(session);
+            }
+        });
+    }
+
+    /**
+     * Runs write work in the unit of work bound to this thread (flushed when it commits), or in a
+     * Session and transaction of its own.
+     */
+    private <T> T write(String method, Function<Session, T> work) {
+        return traced(method, () -> {
+            Optional<Session> current = UnitOfWork.currentSession(sessionFactory);
+            if (current.isPresent()) {
+                return work.apply(current.get());
+            }
+            try (Session session = sessionFactory.openSession()) {
+                Transaction transaction = session.beginTransaction();
+                try {
+                    T result = work.apply(session);
+                    TransactionCommitEvent.commit(transaction, method);
+                    return result;
+                } catch (RuntimeException e) {
+                    if (transaction.isActive()) {
+                        try {
+                            transaction.rollback();
+                        } catch (RuntimeException rollbackError) {
+                            e.addSuppressed(rollbackError);
+                        }
+                    }
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /**
+     * Emits a {@link DaoQueryEvent} for the work when a JFR recording has it enabled.
+     */
+    private static <T> T traced(String method, Supplier<T> work) {
+        DaoQueryEvent event = new DaoQueryEvent();
+        event.begin();
+        T result = null;
+        boolean successful = false;
+        try {
+            result = work.get();
+            successful = true;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = method;
+                event.rows = rowCount(result);
+                event.successful = successful;
+                event.commit();
+            }
+        }
+    }
+
+    private static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof BatchResult) {
+            return ((BatchResult<?>) result).getSaved().size();
+        }
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof Boolean) {
+            return (Boolean) result ? 1 : 0;
+        }
+        return 1;
+    }
+
+    /**
+     * The filter predicates of the query, shared by search and count. Each one is a range or prefix
+     * condition on an indexed column, except the email domain (see db/user_search_indexes.sql).
+     */
+    private static List<Predicate> filters(CriteriaBuilder cb, Root<User> root, UserQuery query) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.getNamePrefix() != null) {
+            predicates.add(cb.like(root.get("name"), escapeLike(query.getNamePrefix()) + "%", '\\'));
+        }
+        Path<Integer> age = root.get("age");
+        if (query.getMinAge() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(age, query.getMinAge()));
+        }
+        if (query.getMaxAge() != null) {
+            predicates.add(cb.lessThanOrEqualTo(age, query.getMaxAge()));
+        }
+        if (query.getSort() == UserQuery.Sort.AGE) {
+            predicates.add(cb.isNotNull(age));
+        }
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        if (query.getCreatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, query.getCreatedFrom()));
+        }
+        if (query.getCreatedBefore() != null) {
+            predicates.add(cb.lessThan(createdAt, query.getCreatedBefore()));
+        }
+        if (query.getEmailDomain() != null) {
+            predicates.add(cb.like(cb.lower(root.get("email")), "%@" + escapeLike(query.getEmailDomain()), '\\'));
+        }
+        return predicates;
+    }
+
+    /**
+     * Keyset condition: rows that sort after the last row of the previous page, by sort value then id.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder cb, Root<User> root, UserQuery query) {
+        Path<Long> id = root.get("id");
+        boolean descending = query.isDescending();
+        Predicate afterId = descending ? cb.lessThan(id, query.getAfterId()) : cb.greaterThan(id, query.getAfterId());
+        if (query.getSort() == UserQuery.Sort.ID) {
+            return afterId;
+        }
+        Expression<Comparable> sorted = root.get(query.getSort().getAttribute());
+        Comparable value = query.getAfterValue();
+        Predicate beyond = descending ? cb.lessThan(sorted, value) : cb.greaterThan(sorted, value);
+        return cb.or(beyond, cb.and(cb.equal(sorted, value), afterId));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Draws the next id from the entity's pooled sequence generator, so rows written with plain
+     * JDBC get ids from the same blocks Hibernate hands out.
+     */
+    private Long nextId(Session session, User user) {
+        SharedSessionContractImplementor sessionImplementor = session.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = sessionImplementor.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(User.class);
+        return (Long) ((BeforeExecutionGenerator) persister.getGenerator())
+                .generate(sessionImplementor, user, null, EventType.INSERT);
+    }
+
+    private String returning(String dml, String columns) {
+        if (returningViaDeltaTable) {
+            return "SELECT " + columns + " FROM FINAL TABLE (" + dml + ")";
+        }
+        return dml + " RETURNING " + columns;
+    }
+
+    /**
+     * Called after a versioned update matched no row: tells a missing user (no exception) apart
+     * from one that was modified since it was read.
+     */
+    private static void checkVersion(Session session, Long id, Long expectedVersion) {
+        Long currentVersion = executeStatement(session, SELECT_VERSION_SQL, (statement, results) -> {
+            statement.setLong(1, id);
+            ResultSet rs = results.extract(statement, SELECT_VERSION_SQL);
+            return rs.next() ? rs.getLong(1) : null;
+        });
+        if (currentVersion != null) {
+            throw new OptimisticLockException("User " + id + " was modified concurrently: expected version "
+                    + expectedVersion + ", found " + currentVersion);
+        }
+    }
+
+    /**
+     * Runs a hand-written statement through the Session's JdbcCoordinator rather than a raw
+     * connection, so it passes the StatementInspector, session event listeners and SQL logging
+     * like Hibernate's own statements. The statement and its result sets are released afterwards.
+     */
+    private static <T> T executeStatement(Session session, String sql, StatementWork<T> work) {
+        SharedSessionContractImplementor sessionImplementor = session.unwrap(SharedSessionContractImplementor.class);
+        JdbcCoordinator jdbc = sessionImplementor.getJdbcCoordinator();
+        PreparedStatement statement = jdbc.getStatementPreparer().prepareStatement(sql);
+        try {
+            return work.execute(statement, jdbc.getResultSetReturn());
+        } catch (SQLException e) {
+            throw sessionImplementor.getJdbcServices().getSqlExceptionHelper()
+                    .convert(e, "Could not execute statement", sql);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbc.afterStatementExecution();
+        }
+    }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setName(rs.getString("name"));
+        user.setEmail(rs.getString("email"));
+        int age = rs.getInt("age");
+        user.setAge(rs.wasNull() ? null : age);
+        user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        user.setVersion(rs.getLong("version"));
+        return user;
+    }
+
+    private static void bindInsert(PreparedStatement statement, Long id, User user) throws SQLException {
+        statement.setLong(1, id);
+        statement.setString(2, user.getName());
+        statement.setString(3, user.getEmail());
+        if (user.getAge() != null) {
+            statement.setInt(4, user.getAge());
+        } else {
+            statement.setNull(4, Types.INTEGER);
+        }
+        statement.setTimestamp(5, Timestamp.valueOf(user.getCreatedAt()));
+    }
+
+    /**
+     * Statements run through plain JDBC bypass Hibernate's cache invalidation, so drop the
+     * affected entity and the email query results once the surrounding transaction is over.
+     */
+    private void evictAfterCompletion(Long id) {
+        UnitOfWork.afterCompletion(() -> {
+            Cache cache = sessionFactory.getCache();
+            if (id != null) {
+                cache.evictEntityData(User.class, id);
+            }
+            cache.evictQueryRegion(User.BY_EMAIL_QUERY_CACHE_REGION);
+        });
+    }
+
+    private static boolean isConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface StatementWork<T> {
+
+        T execute(PreparedStatement statement, ResultSetReturn results) throws SQLException;
+    }
+}
@@ -1,15 +1,31 @@
 package models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "user", schema = "public")
+// Indexes backing UserDao.search: name prefix, age range and creation-time range filters and sorts.
+@Table(name = "user", schema = "public", indexes = {
+        @Index(name = "idx_user_name", columnList = "name, id"),
+        @Index(name = "idx_user_age", columnList = "age, id"),
+        @Index(name = "idx_user_created_at", columnList = "created_at, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 public class User {
 
+    public static final String CACHE_REGION = "models.User";
+    public static final String BY_EMAIL_QUERY_CACHE_REGION = "models.User.byEmail";
+
+    // Pooled sequence allocation (one nextval per 50 ids) keeps JDBC insert batching enabled,
+    // which IDENTITY columns disable.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id_seq")
+    @SequenceGenerator(name = "user_id_seq", sequenceName = "user_id_seq", schema = "public", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -25,6 +41,12 @@ public class User {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Optimistic locking: every update bumps the version and fails if it changed since the read.
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public User() {
         this.createdAt = LocalDateTime.now();
     }
@@ -36,6 +58,15 @@ public class User {
         this.createdAt = LocalDateTime.now();
     }
 
+    public User(User other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.email = other.email;
+        this.age = other.age;
+        this.createdAt = other.createdAt;
+        this.version = other.version;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -67,6 +98,13 @@ public class User {
         this.createdAt = createdAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -91,6 +129,7 @@ public class User {
                 ", email='" + email + '\'' +
                 ", age=" + age +
                 ", createdAt=" + createdAt +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,78 @@
+package models;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Immutable read-only projection of a {@link User} for listings and lookups. Loaded with a constructor
+ * projection, it is never managed by a persistence context: no entity snapshot for dirty checking and
+ * no second-level cache entry, just the five columns.
+ */
+public final class UserView {
+
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final Integer age;
+    private final LocalDateTime createdAt;
+
+    public UserView(Long id, String name, String email, Integer age, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+        this.createdAt = createdAt;
+    }
+
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getName(), user.getEmail(), user.getAge(), user.getCreatedAt());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserView view = (UserView) o;
+        return Objects.equals(id, view.id) &&
+                Objects.equals(name, view.name) &&
+                Objects.equals(email, view.email) &&
+                Objects.equals(age, view.age) &&
+                Objects.equals(createdAt, view.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, email, age, createdAt);
+    }
+
+    @Override
+    public String toString() {
+        return "UserView{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", email='" + email + '\'' +
+                ", age=" + age +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
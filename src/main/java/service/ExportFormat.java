@@ -0,0 +1,30 @@
+package service;
+
+import java.util.Locale;
+
+/**
+ * Output formats of {@link UserService#exportUsers}.
+ */
+public enum ExportFormat {
+
+    /**
+     * RFC 4180 CSV with a header row: id,name,email,age,created_at,version.
+     */
+    CSV,
+
+    /**
+     * One JSON object per line: {"id":..,"name":..,"email":..,"age":..,"createdAt":..,"version":..}.
+     */
+    JSON_LINES;
+
+    /**
+     * @param name "csv", "jsonl" or the constant name, case-insensitive
+     */
+    public static ExportFormat fromName(String name) {
+        String normalized = name.trim().toUpperCase(Locale.ROOT);
+        if (normalized.equals("JSONL") || normalized.equals("NDJSON")) {
+            return JSON_LINES;
+        }
+        return valueOf(normalized);
+    }
+}
@@ -1,8 +1,14 @@
 package service;
 
+import dao.BatchResult;
+import dao.UserQuery;
 import models.User;
+import models.UserView;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public interface UserService {
@@ -10,14 +16,82 @@ public interface UserService {
 
     User createUser(String name, String email, Integer age);
 
+    /**
+     * Creates the user, or updates name and age of the existing user with this email, atomically.
+     */
+    User upsertUser(String name, String email, Integer age);
+
+    BatchResult<User> createUsers(Collection<User> users);
+
+    BatchResult<User> createUsers(Collection<User> users, int batchSize);
+
     Optional<User> getUserById(Long id);
 
     User getUserByEmail(String email);
 
+    List<User> getUsersByIds(Collection<Long> ids);
+
+    List<User> getUsersByEmails(Collection<String> emails);
+
     List<User> getAllUsers();
 
+    List<User> getUsersPage(Long afterId, int limit);
+
+    /**
+     * Read-only lookup for display: an immutable projection that is never attached to a persistence context.
+     */
+    Optional<UserView> getUserView(Long id);
+
+    /**
+     * Read-only variant of {@link #getUsersPage(Long, int)} for listings.
+     */
+    List<UserView> getUserViewsPage(Long afterId, int limit);
+
+    /**
+     * Up to {@code limit} of the most recently created users as read-only projections, newest first.
+     */
+    List<UserView> getRecentUserViews(int limit);
+
+    /**
+     * One page of users matching the query, as read-only projections; see {@link UserQuery}.
+     */
+    List<UserView> searchUsers(UserQuery query);
+
+    long countUsers(UserQuery query);
+
+    /**
+     * Type-ahead fuzzy search over names and emails, ranked by similarity to the text.
+     *
+     * @throws IllegalStateException if the service runs without a search index
+     */
+    List<UserView> fuzzySearchUsers(String text, int limit);
+
+    /**
+     * Streams all users with constant memory; the returned stream must be closed.
+     */
+    Stream<User> streamAllUsers();
+
+    /**
+     * Writes every user, ordered by id, to the channel from a database cursor with constant memory.
+     * The channel is not closed; wrap it (e.g. in a gzip stream) for compressed output.
+     *
+     * @return the number of users written
+     * @throws java.io.UncheckedIOException if writing to the channel fails
+     */
+    long exportUsers(WritableByteChannel channel, ExportFormat format);
+
 
     User updateUser(Long id, String name, String email, Integer age);
 
+    /**
+     * Updates the given (non-empty) fields with a single statement. With no fields to change the
+     * current user is returned and its version is left as it is.
+     *
+     * @param expectedVersion the version the caller last read, or null to update unconditionally
+     * @throws IllegalArgumentException if the user does not exist or another user has the new email
+     * @throws jakarta.persistence.OptimisticLockException if the user was modified since that version
+     */
+    User updateUser(Long id, String name, String email, Integer age, Long expectedVersion);
+
     boolean deleteUser(Long id);
 }
@@ -0,0 +1,188 @@
+package service.impl;
+
+import dao.BatchResult;
+import dao.UserQuery;
+import models.User;
+import models.UserView;
+import service.ExportFormat;
+import service.UserService;
+import util.OperationMetrics;
+
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Records call count, error count and latency of every UserService operation in
+ * {@link OperationMetrics}. Overloads share one operation; validation failures count as errors.
+ */
+public class InstrumentedUserService implements UserService {
+
+    private final UserService delegate;
+    private final OperationMetrics metrics;
+
+    private final OperationMetrics.Operation createUser;
+    private final OperationMetrics.Operation upsertUser;
+    private final OperationMetrics.Operation createUsers;
+    private final OperationMetrics.Operation getUserById;
+    private final OperationMetrics.Operation getUserByEmail;
+    private final OperationMetrics.Operation getUsersByIds;
+    private final OperationMetrics.Operation getUsersByEmails;
+    private final OperationMetrics.Operation getAllUsers;
+    private final OperationMetrics.Operation getUsersPage;
+    private final OperationMetrics.Operation getUserView;
+    private final OperationMetrics.Operation getUserViewsPage;
+    private final OperationMetrics.Operation getRecentUserViews;
+    private final OperationMetrics.Operation searchUsers;
+    private final OperationMetrics.Operation countUsers;
+    private final OperationMetrics.Operation fuzzySearchUsers;
+    private final OperationMetrics.Operation streamAllUsers;
+    private final OperationMetrics.Operation exportUsers;
+    private final OperationMetrics.Operation updateUser;
+    private final OperationMetrics.Operation deleteUser;
+
+    public InstrumentedUserService(UserService delegate) {
+        this(delegate, new OperationMetrics("UserService"));
+    }
+
+    public InstrumentedUserService(UserService delegate, OperationMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.createUser = metrics.operation("createUser");
+        this.upsertUser = metrics.operation("upsertUser");
+        this.createUsers = metrics.operation("createUsers");
+        this.getUserById = metrics.operation("getUserById");
+        this.getUserByEmail = metrics.operation("getUserByEmail");
+        this.getUsersByIds = metrics.operation("getUsersByIds");
+        this.getUsersByEmails = metrics.operation("getUsersByEmails");
+        this.getAllUsers = metrics.operation("getAllUsers");
+        this.getUsersPage = metrics.operation("getUsersPage");
+        this.getUserView = metrics.operation("getUserView");
+        this.getUserViewsPage = metrics.operation("getUserViewsPage");
+        this.getRecentUserViews = metrics.operation("getRecentUserViews");
+        this.searchUsers = metrics.operation("searchUsers");
+        this.countUsers = metrics.operation("countUsers");
+        this.fuzzySearchUsers = metrics.operation("fuzzySearchUsers");
+        this.streamAllUsers = metrics.operation("streamAllUsers");
+        this.exportUsers = metrics.operation("exportUsers");
+        this.updateUser = metrics.operation("updateUser");
+        this.deleteUser = metrics.operation("deleteUser");
+    }
+
+    public OperationMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public User createUser(String name, String email, Integer age) {
+        return createUser.call(() -> delegate.createUser(name, email, age));
+    }
+
+    @Override
+    public User upsertUser(String name, String email, Integer age) {
+        return upsertUser.call(() -> delegate.upsertUser(name, email, age));
+    }
+
+    @Override
+    public BatchResult<User> createUsers(Collection<User> users) {
+        return createUsers.call(() -> delegate.createUsers(users));
+    }
+
+    @Override
+    public BatchResult<User> createUsers(Collection<User> users, int batchSize) {
+        return createUsers.call(() -> delegate.createUsers(users, batchSize));
+    }
+
+    @Override
+    public Optional<User> getUserById(Long id) {
+        return getUserById.call(() -> delegate.getUserById(id));
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return getUserByEmail.call(() -> delegate.getUserByEmail(email));
+    }
+
+    @Override
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        return getUsersByIds.call(() -> delegate.getUsersByIds(ids));
+    }
+
+    @Override
+    public List<User> getUsersByEmails(Collection<String> emails) {
+        return getUsersByEmails.call(() -> delegate.getUsersByEmails(emails));
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return getAllUsers.call(delegate::getAllUsers);
+    }
+
+    @Override
+    public List<User> getUsersPage(Long afterId, int limit) {
+        return getUsersPage.call(() -> delegate.getUsersPage(afterId, limit));
+    }
+
+    @Override
+    public Optional<UserView> getUserView(Long id) {
+        return getUserView.call(() -> delegate.getUserView(id));
+    }
+
+    @Override
+    public List<UserView> getUserViewsPage(Long afterId, int limit) {
+        return getUserViewsPage.call(() -> delegate.getUserViewsPage(afterId, limit));
+    }
+
+    @Override
+    public List<UserView> getRecentUserViews(int limit) {
+        return getRecentUserViews.call(() -> delegate.getRecentUserViews(limit));
+    }
+
+    @Override
+    public List<UserView> searchUsers(UserQuery query) {
+        return searchUsers.call(() -> delegate.searchUsers(query));
+    }
+
+    @Override
+    public long countUsers(UserQuery query) {
+        return countUsers.call(() -> delegate.countUsers(query));
+    }
+
+    @Override
+    public List<UserView> fuzzySearchUsers(String text, int limit) {
+        return fuzzySearchUsers.call(() -> delegate.fuzzySearchUsers(text, limit));
+    }
+
+    @Override
+    public Stream<User> streamAllUsers() {
+        long start = streamAllUsers.start();
+        try {
+            return delegate.streamAllUsers().onClose(() -> streamAllUsers.record(start, false));
+        } catch (RuntimeException | Error e) {
+            streamAllUsers.record(start, true);
+            throw e;
+        }
+    }
+
+    @Override
+    public long exportUsers(WritableByteChannel channel, ExportFormat format) {
+        return exportUsers.call(() -> delegate.exportUsers(channel, format));
+    }
+
+    @Override
+    public User updateUser(Long id, String name, String email, Integer age) {
+        return updateUser.call(() -> delegate.updateUser(id, name, email, age));
+    }
+
+    @Override
+    public User updateUser(Long id, String name, String email, Integer age, Long expectedVersion) {
+        return updateUser.call(() -> delegate.updateUser(id, name, email, age, expectedVersion));
+    }
+
+    @Override
+    public boolean deleteUser(Long id) {
+        return deleteUser.call(() -> delegate.deleteUser(id));
+    }
+}
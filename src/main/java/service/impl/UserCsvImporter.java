@@ -0,0 +1,342 @@
+package service.impl;
+
+import dao.BatchResult;
+import dao.UserDao;
+import models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.MappedLineReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulk import of users from a CSV file with a header row naming the {@code name}, {@code email} and
+ * (optional) {@code age} columns, in any order. Fields may be double-quoted ({@code ""} escapes a quote);
+ * quoted fields cannot span lines.
+ * <p>
+ * The calling thread reads the file through a {@link MappedLineReader} and hands blocks of
+ * {@code batchSize} lines to worker threads, which parse and validate them with the same rules as
+ * {@link UserServiceImpl#createUser} and insert the valid users with {@link UserDao#importUsers}
+ * (StatelessSession, JDBC batches). At most two blocks per worker are in flight, so memory stays
+ * bounded whatever the file size. Progress is logged at a fixed interval.
+ */
+public class UserCsvImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCsvImporter.class);
+    private static final int MAX_REJECTION_SAMPLES = 100;
+
+    private final UserDao userDao;
+    private final Settings settings;
+
+    public UserCsvImporter(UserDao userDao, Settings settings) {
+        this.userDao = userDao;
+        this.settings = settings;
+    }
+
+    public Report importFile(Path file) throws IOException {
+        Report report = new Report();
+        long start = System.nanoTime();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(settings.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "user-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-import-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int maxInFlight = settings.getThreads() * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        try (MappedLineReader reader = new MappedLineReader(file)) {
+            Columns columns = Columns.fromHeader(reader.readLine());
+            long interval = settings.getProgressInterval().toNanos();
+            progress.scheduleAtFixedRate(() -> logProgress(report, reader, start), interval, interval, TimeUnit.NANOSECONDS);
+
+            long lineNumber = 1;
+            List<String> block = new ArrayList<>(settings.getBatchSize());
+            long blockStart = lineNumber + 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (block.isEmpty()) {
+                    blockStart = lineNumber;
+                }
+                block.add(line);
+                if (block.size() == settings.getBatchSize()) {
+                    submit(workers, inFlight, columns, block, blockStart, report);
+                    block = new ArrayList<>(settings.getBatchSize());
+                }
+            }
+            if (!block.isEmpty()) {
+                submit(workers, inFlight, columns, block, blockStart, report);
+            }
+            inFlight.acquire(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing " + file, e);
+        } finally {
+            progress.shutdownNow();
+            workers.shutdownNow();
+        }
+
+        report.elapsedNanos = System.nanoTime() - start;
+        logger.info("Import of {} finished: {}", file, report);
+        return report;
+    }
+
+    private void submit(ExecutorService workers, Semaphore inFlight, Columns columns, List<String> lines,
+                        long firstLine, Report report) throws InterruptedException {
+        inFlight.acquire();
+        try {
+            workers.execute(() -> {
+                try {
+                    importBlock(columns, lines, firstLine, report);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void importBlock(Columns columns, List<String> lines, long firstLine, Report report) {
+        List<User> users = new ArrayList<>(lines.size());
+        Map<User, Long> lineNumbers = new IdentityHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            long lineNumber = firstLine + i;
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+            report.rowsRead.increment();
+            try {
+                User user = columns.parse(lines.get(i));
+                UserServiceImpl.validateNewUser(user.getName(), user.getEmail());
+                users.add(user);
+                lineNumbers.put(user, lineNumber);
+            } catch (IllegalArgumentException e) {
+                report.reject(lineNumber, e.getMessage());
+            }
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+        try {
+            BatchResult<User> result = userDao.importUsers(users, settings.getBatchSize());
+            report.imported.add(result.getSaved().size());
+            for (BatchResult.Failure<User> failure : result.getFailures()) {
+                report.reject(lineNumbers.getOrDefault(failure.getItem(), -1L), failure.getReason());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Import of lines {}-{} failed: {}", firstLine, firstLine + lines.size() - 1, e.getMessage(), e);
+            for (User user : users) {
+                report.reject(lineNumbers.get(user), e.getMessage());
+            }
+        }
+    }
+
+    private static void logProgress(Report report, MappedLineReader reader, long start) {
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        logger.info(String.format(Locale.ROOT, "Import progress: %d rows read, %d imported, %d rejected, %.0f rows/s, %.1f%% of file",
+                report.getRowsRead(), report.getImported(), report.getRejected(),
+                seconds > 0 ? report.getRowsRead() / seconds : 0,
+                reader.getSize() == 0 ? 100.0 : 100.0 * reader.getPosition() / reader.getSize()));
+    }
+
+    static List<String> parseFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static class Columns {
+
+        private final int name;
+        private final int email;
+        private final int age;
+
+        private Columns(int name, int email, int age) {
+            this.name = name;
+            this.email = email;
+            this.age = age;
+        }
+
+        static Columns fromHeader(String header) {
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            List<String> names = parseFields(header);
+            int name = -1;
+            int email = -1;
+            int age = -1;
+            for (int i = 0; i < names.size(); i++) {
+                switch (names.get(i).trim().toLowerCase(Locale.ROOT)) {
+                    case "name":
+                        name = i;
+                        break;
+                    case "email":
+                        email = i;
+                        break;
+                    case "age":
+                        age = i;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (name < 0 || email < 0) {
+                throw new IllegalArgumentException("CSV header must contain name and email columns: " + header);
+            }
+            return new Columns(name, email, age);
+        }
+
+        User parse(String line) {
+            List<String> fields = parseFields(line);
+            String ageField = age >= 0 && age < fields.size() ? fields.get(age).trim() : "";
+            Integer parsedAge;
+            try {
+                parsedAge = ageField.isEmpty() ? null : Integer.valueOf(ageField);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid age: " + ageField);
+            }
+            return new User(field(fields, name), field(fields, email), parsedAge);
+        }
+
+        private static String field(List<String> fields, int index) {
+            return index < fields.size() ? fields.get(index).trim() : null;
+        }
+    }
+
+    public static class Report {
+
+        private final LongAdder rowsRead = new LongAdder();
+        private final LongAdder imported = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final List<String> rejectionSamples = Collections.synchronizedList(new ArrayList<>());
+        private volatile long elapsedNanos;
+
+        private void reject(long lineNumber, String reason) {
+            rejected.increment();
+            if (rejectionSamples.size() < MAX_REJECTION_SAMPLES) {
+                rejectionSamples.add("line " + lineNumber + ": " + reason);
+            }
+        }
+
+        public long getRowsRead() {
+            return rowsRead.sum();
+        }
+
+        public long getImported() {
+            return imported.sum();
+        }
+
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        /**
+         * @return "line N: reason" for the first rejected rows (at most 100)
+         */
+        public List<String> getRejectionSamples() {
+            synchronized (rejectionSamples) {
+                return new ArrayList<>(rejectionSamples);
+            }
+        }
+
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos <= 0 ? 0 : getRowsRead() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "rows=%d, imported=%d, rejected=%d, elapsed=%d ms, %.0f rows/s",
+                    getRowsRead(), getImported(), getRejected(), getElapsed().toMillis(), getRowsPerSecond());
+        }
+    }
+
+    public static class Settings {
+
+        private final int batchSize;
+        private final int threads;
+        private final Duration progressInterval;
+
+        public Settings(int batchSize, int threads, Duration progressInterval) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("Batch size must be positive");
+            }
+            if (threads <= 0) {
+                throw new IllegalArgumentException("Import threads must be positive");
+            }
+            if (progressInterval == null || progressInterval.isNegative() || progressInterval.isZero()) {
+                throw new IllegalArgumentException("Progress interval must be positive");
+            }
+            this.batchSize = batchSize;
+            this.threads = threads;
+            this.progressInterval = progressInterval;
+        }
+
+        public static Settings defaults() {
+            return new Settings(1_000, Math.max(2, Runtime.getRuntime().availableProcessors()), Duration.ofSeconds(5));
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public Duration getProgressInterval() {
+            return progressInterval;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package service.impl;
+
+import models.User;
+import service.ExportFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Encodes users as CSV or JSON Lines straight into one reusable direct buffer that is written to the
+ * channel whenever it fills up. Rows are formatted into a reused StringBuilder and encoded through a
+ * reused CharBuffer, so rows produce next to no garbage beyond the entity itself and heap use does not
+ * depend on the number of rows. Not thread-safe; the channel is not closed.
+ */
+class UserExportWriter {
+
+    private static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+    private static final String CSV_HEADER = "id,name,email,age,created_at,version\n";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final WritableByteChannel channel;
+    private final ExportFormat format;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder(256);
+    private CharBuffer chars = CharBuffer.allocate(1024);
+    private long rows;
+    private long bytesWritten;
+
+    UserExportWriter(WritableByteChannel channel, ExportFormat format) {
+        this(channel, format, DEFAULT_BUFFER_BYTES);
+    }
+
+    UserExportWriter(WritableByteChannel channel, ExportFormat format, int bufferBytes) {
+        this.channel = channel;
+        this.format = format;
+        this.bytes = ByteBuffer.allocateDirect(bufferBytes);
+        if (format == ExportFormat.CSV) {
+            line.append(CSV_HEADER);
+            encodeLine();
+        }
+    }
+
+    void write(User user) {
+        line.setLength(0);
+        if (format == ExportFormat.CSV) {
+            appendCsv(user);
+        } else {
+            appendJson(user);
+        }
+        encodeLine();
+        rows++;
+    }
+
+    /**
+     * Writes out everything still buffered.
+     */
+    void finish() {
+        drain();
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    long getBytesWritten() {
+        return bytesWritten + bytes.position();
+    }
+
+    private void appendCsv(User user) {
+        line.append(user.getId()).append(',');
+        appendCsvField(user.getName());
+        line.append(',');
+        appendCsvField(user.getEmail());
+        line.append(',');
+        if (user.getAge() != null) {
+            line.append(user.getAge().intValue());
+        }
+        line.append(',');
+        if (user.getCreatedAt() != null) {
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(user.getCreatedAt(), line);
+        }
+        line.append(',');
+        if (user.getVersion() != null) {
+            line.append(user.getVersion().longValue());
+        }
+        line.append('\n');
+    }
+
+    private void appendCsvField(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void appendJson(User user) {
+        line.append("{\"id\":").append(user.getId());
+        line.append(",\"name\":");
+        appendJsonString(user.getName());
+        line.append(",\"email\":");
+        appendJsonString(user.getEmail());
+        line.append(",\"age\":");
+        if (user.getAge() != null) {
+            line.append(user.getAge().intValue());
+        } else {
+            line.append("null");
+        }
+        line.append(",\"createdAt\":");
+        if (user.getCreatedAt() != null) {
+            line.append('"');
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(user.getCreatedAt(), line);
+            line.append('"');
+        } else {
+            line.append("null");
+        }
+        line.append(",\"version\":").append(user.getVersion()).append("}\n");
+    }
+
+    private void appendJsonString(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    private void encodeLine() {
+        int length = line.length();
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+        }
+        chars.clear();
+        line.getChars(0, length, chars.array(), 0);
+        chars.limit(length);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                throw new IllegalArgumentException("Cannot encode user as UTF-8: " + result);
+            }
+        }
+        encoder.reset();
+        if (!bytes.hasRemaining()) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        bytes.flip();
+        try {
+            while (bytes.hasRemaining()) {
+                bytesWritten += channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing user export", e);
+        } finally {
+            bytes.clear();
+        }
+    }
+}
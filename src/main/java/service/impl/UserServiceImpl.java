@@ -1,49 +1,155 @@
 package service.impl;
 
+import dao.BatchResult;
 import dao.UserDao;
+import dao.UserQuery;
+import dao.impl.CachingUserDao;
+import dao.impl.CoalescingUserDao;
 import dao.impl.UserDaoImpl;
+import jakarta.persistence.OptimisticLockException;
 import models.User;
+import models.UserView;
+import service.ExportFormat;
 import service.UserService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import util.HibernateTransactionTemplate;
+import util.HibernateUtil;
+import util.TransactionTemplate;
 
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public class UserServiceImpl implements UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int EXPORT_FETCH_SIZE = 5_000;
     private final UserDao userDao;
+    private final CachingUserDao userCache;
+    private final TransactionTemplate transactions;
+    private final UserTrigramIndex searchIndex;
 
     public UserServiceImpl() {
-        this.userDao = new UserDaoImpl();
+        this(new CoalescingUserDao(new UserDaoImpl()), null,
+                new HibernateTransactionTemplate(HibernateUtil.getSessionFactory()));
     }
 
     public UserServiceImpl(UserDao userDao) {
-        this.userDao = userDao;
+        this(userDao, null, null);
+    }
+
+    public UserServiceImpl(UserDao userDao, CachingUserDao.Settings cacheSettings) {
+        this(userDao, cacheSettings, null);
+    }
+
+    /**
+     * @param cacheSettings settings of the in-process user cache, or null to read through to the DAO directly
+     * @param transactions  unit of work wrapped around each write operation, or null to let every DAO call
+     *                      run in its own transaction
+     */
+    public UserServiceImpl(UserDao userDao, CachingUserDao.Settings cacheSettings, TransactionTemplate transactions) {
+        this(userDao, cacheSettings, transactions, null);
+    }
+
+    /**
+     * @param searchIndex fuzzy search index kept up to date by this service's writes, or null to run
+     *                    without fuzzy search; fill it with {@link #rebuildSearchIndex()}
+     */
+    public UserServiceImpl(UserDao userDao, CachingUserDao.Settings cacheSettings, TransactionTemplate transactions,
+                           UserTrigramIndex searchIndex) {
+        this.searchIndex = searchIndex;
+        this.transactions = transactions != null ? transactions : TransactionTemplate.none();
+        if (cacheSettings != null) {
+            this.userCache = new CachingUserDao(userDao, cacheSettings);
+            this.userDao = userCache;
+        } else {
+            this.userCache = null;
+            this.userDao = userDao;
+        }
+    }
+
+    public Optional<CachingUserDao> getUserCache() {
+        return Optional.ofNullable(userCache);
+    }
+
+    public Optional<UserTrigramIndex> getSearchIndex() {
+        return Optional.ofNullable(searchIndex);
+    }
+
+    /**
+     * Loads every user into the search index from a database cursor.
+     *
+     * @return the number of users indexed
+     */
+    public int rebuildSearchIndex() {
+        UserTrigramIndex index = requireSearchIndex();
+        try (Stream<User> users = userDao.streamAll(EXPORT_FETCH_SIZE)) {
+            index.rebuild(users);
+        }
+        logger.info("Search index rebuilt: {}", index);
+        return index.size();
     }
 
     @Override
     public User createUser(String name, String email, Integer age) {
         logger.debug("Creating user with name: {}, email: {}, age: {}", name, email, age);
 
-        if (name == null || name.trim().isEmpty()) {
-            throw new IllegalArgumentException("User name cannot be empty");
-        }
+        validateNewUser(name, email);
 
-        if (email == null || email.trim().isEmpty()) {
-            throw new IllegalArgumentException("User email cannot be empty");
-        }
+        // The unique email constraint decides atomically; no read-before-write round trip.
+        User user = userDao.insertIfEmailAbsent(new User(name, email, age))
+                .orElseThrow(() -> new IllegalArgumentException("User with email " + email + " already exists"));
+        index(user);
+        return user;
+    }
+
+    @Override
+    public User upsertUser(String name, String email, Integer age) {
+        logger.debug("Upserting user with name: {}, email: {}, age: {}", name, email, age);
+
+        validateNewUser(name, email);
 
+        User user = userDao.upsertByEmail(new User(name, email, age));
+        index(user);
+        return user;
+    }
 
-        User existingUser = userDao.findByEmail(email);
-        if (existingUser != null) {
-            throw new IllegalArgumentException("User with email " + email + " already exists");
+    @Override
+    public BatchResult<User> createUsers(Collection<User> users) {
+        return createUsers(users, DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public BatchResult<User> createUsers(Collection<User> users, int batchSize) {
+        logger.debug("Creating {} users in batches of {}", users.size(), batchSize);
+
+        BatchResult<User> result = new BatchResult<>();
+        List<User> validUsers = new ArrayList<>(users.size());
+        for (User user : users) {
+            try {
+                validateNewUser(user.getName(), user.getEmail());
+                validUsers.add(user);
+            } catch (IllegalArgumentException e) {
+                result.addFailure(user, e.getMessage());
+            }
         }
 
-        User user = new User(name, email, age);
-        return userDao.save(user);
+        if (!validUsers.isEmpty()) {
+            BatchResult<User> saved = userDao.createUsers(validUsers, batchSize);
+            saved.getSaved().forEach(this::index);
+            result.addAll(saved);
+        }
+        return result;
     }
 
     @Override
@@ -58,6 +164,18 @@ public class UserServiceImpl implements UserService {
         return userDao.findByEmail(email);
     }
 
+    @Override
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        logger.debug("Getting {} users by id", ids.size());
+        return userDao.findAllByIds(ids);
+    }
+
+    @Override
+    public List<User> getUsersByEmails(Collection<String> emails) {
+        logger.debug("Getting {} users by email", emails.size());
+        return userDao.findAllByEmails(emails);
+    }
+
     @Override
     public List<User> getAllUsers() {
         logger.debug("Getting all users");
@@ -65,33 +183,142 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public User updateUser(Long id, String name, String email, Integer age) {
-        logger.debug("Updating user with id: {}", id);
+    public List<User> getUsersPage(Long afterId, int limit) {
+        logger.debug("Getting {} users after id: {}", limit, afterId);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        return userDao.findPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<UserView> getUserView(Long id) {
+        logger.debug("Getting user view by id: {}", id);
+        return userDao.findViewById(id);
+    }
+
+    @Override
+    public List<UserView> getUserViewsPage(Long afterId, int limit) {
+        logger.debug("Getting {} user views after id: {}", limit, afterId);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        return userDao.findViewPage(afterId, limit);
+    }
 
-        Optional<User> userOptional = userDao.findById(id);
-        if (userOptional.isEmpty()) {
-            throw new IllegalArgumentException("User with id " + id + " not found");
+    @Override
+    public List<UserView> getRecentUserViews(int limit) {
+        logger.debug("Getting {} most recent user views", limit);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
         }
+        return userDao.findRecentViews(limit);
+    }
 
-        User user = userOptional.get();
+    @Override
+    public List<UserView> fuzzySearchUsers(String text, int limit) {
+        logger.debug("Fuzzy searching {} users for: {}", limit, text);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        List<UserTrigramIndex.Match> matches = requireSearchIndex().search(text, limit);
+        List<Long> ids = new ArrayList<>(matches.size());
+        for (UserTrigramIndex.Match match : matches) {
+            ids.add(match.getId());
+        }
+        // the index ranks, the database has the current rows; ids whose user is gone are skipped
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userDao.findAllByIds(ids)) {
+            users.put(user.getId(), user);
+        }
+        List<UserView> views = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                views.add(UserView.of(user));
+            }
+        }
+        return views;
+    }
+
+    @Override
+    public List<UserView> searchUsers(UserQuery query) {
+        logger.debug("Searching users: {}", query);
+        return userDao.search(query);
+    }
 
-        if (name != null && !name.trim().isEmpty()) {
-            user.setName(name);
+    @Override
+    public long countUsers(UserQuery query) {
+        logger.debug("Counting users: {}", query);
+        return userDao.count(query);
+    }
+
+    @Override
+    public Stream<User> streamAllUsers() {
+        logger.debug("Streaming all users");
+        return userDao.streamAll(STREAM_FETCH_SIZE);
+    }
+
+    @Override
+    public long exportUsers(WritableByteChannel channel, ExportFormat format) {
+        logger.debug("Exporting all users as {}", format);
+        UserExportWriter writer = new UserExportWriter(channel, format);
+        try (Stream<User> users = userDao.streamAll(EXPORT_FETCH_SIZE)) {
+            users.forEach(writer::write);
         }
+        writer.finish();
+        logger.debug("Exported {} users, {} bytes", writer.getRows(), writer.getBytesWritten());
+        return writer.getRows();
+    }
+
+    @Override
+    public User updateUser(Long id, String name, String email, Integer age) {
+        return updateUser(id, name, email, age, null);
+    }
 
-        if (email != null && !email.trim().isEmpty() && !email.equals(user.getEmail())) {
-            User existingUser = userDao.findByEmail(email);
-            if (existingUser != null && !existingUser.getId().equals(id)) {
-                throw new IllegalArgumentException("User with email " + email + " already exists");
+    @Override
+    public User updateUser(Long id, String name, String email, Integer age, Long expectedVersion) {
+        logger.debug("Updating user with id: {}", id);
+        String newName = name != null && !name.trim().isEmpty() ? name : null;
+        String newEmail = email != null && !email.trim().isEmpty() ? email : null;
+
+        if (newName == null && newEmail == null && age == null) {
+            // Nothing to change; an UPDATE would only bump the version.
+            return currentUser(id, expectedVersion);
+        }
+
+        User updated;
+        try {
+            // As in createUser, the unique email constraint decides; no read-before-write round trip.
+            updated = transactions.execute(() -> userDao.updateFields(id, newName, newEmail, age, expectedVersion)
+                    .orElseThrow(() -> new IllegalArgumentException("User with id " + id + " not found")));
+        } catch (RuntimeException e) {
+            if (newEmail != null && isUniqueViolation(e)) {
+                throw new IllegalArgumentException("User with email " + newEmail + " already exists", e);
             }
-            user.setEmail(email);
+            throw e;
         }
+        index(updated);
+        return updated;
+    }
 
-        if (age != null) {
-            user.setAge(age);
+    private User currentUser(Long id, Long expectedVersion) {
+        User user = userDao.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("User with id " + id + " not found"));
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new OptimisticLockException("User " + id + " was modified concurrently: expected version "
+                    + expectedVersion + ", found " + user.getVersion());
         }
+        return user;
+    }
 
-        return userDao.update(user);
+    private static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return ((ConstraintViolationException) cause).getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -100,6 +327,33 @@ public class UserServiceImpl implements UserService {
             throw new IllegalArgumentException("ID must be positive");
         }
         logger.debug("Deleting user with id: {}", id);
-        return userDao.deleteById(id);
+        boolean deleted = userDao.deleteById(id) > 0;
+        if (deleted && searchIndex != null) {
+            searchIndex.remove(id);
+        }
+        return deleted;
+    }
+
+    private void index(User user) {
+        if (searchIndex != null) {
+            searchIndex.put(user);
+        }
+    }
+
+    private UserTrigramIndex requireSearchIndex() {
+        if (searchIndex == null) {
+            throw new IllegalStateException("Fuzzy search index is not enabled");
+        }
+        return searchIndex;
+    }
+
+    static void validateNewUser(String name, String email) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("User name cannot be empty");
+        }
+
+        if (email == null || email.trim().isEmpty()) {
+            throw new IllegalArgumentException("User email cannot be empty");
+        }
     }
 }
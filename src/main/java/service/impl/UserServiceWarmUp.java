@@ -0,0 +1,198 @@
+package service.impl;
+
+import dao.UserDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import service.UserService;
+import util.HibernateUtil;
+import util.StartupReport;
+
+import java.time.Duration;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Startup stage that runs before the application reports itself ready, so the first real requests
+ * do not pay for cold connections, unprepared statements, interpreted code and empty caches:
+ * <ol>
+ *     <li>opens the minimum number of connections of the primary pool and of every read replica's pool;</li>
+ *     <li>runs the {@code findById}/{@code findByEmail} queries once through the DAO, so Hibernate's query
+ *     plan cache holds them (PostgreSQL's {@code prepareThreshold} counts executions per connection, so
+ *     this does not switch the pooled connections to server-side prepared statements);</li>
+ *     <li>calls {@code getUserById}/{@code getUserByEmail} through the (decorated) service for a fixed
+ *     number of iterations, so the JIT compiles the read path;</li>
+ *     <li>optionally loads the most recently created users, which puts them into the second-level cache.</li>
+ * </ol>
+ * The synthetic calls look up ids and emails that cannot exist, a different one each time, so no call is
+ * answered from a cache and every one runs its query over JDBC. Their empty results only reach the email
+ * query cache region, which is bounded and cleared by the next write. A failing step is logged and does not
+ * stop startup.
+ */
+public class UserServiceWarmUp {
+
+    public static final String ITERATIONS_PROPERTY = "app.warmUp.iterations";
+    public static final String PRELOAD_USERS_PROPERTY = "app.warmUp.preloadUsers";
+    public static final String MAX_DURATION_PROPERTY = "app.warmUp.maxSeconds";
+
+    private static final Logger logger = LoggerFactory.getLogger(UserServiceWarmUp.class);
+
+    private final UserService userService;
+    private final UserDao userDao;
+    private final Settings settings;
+    private final IntSupplier connectionPool;
+    private final LongSupplier ticker;
+
+    public UserServiceWarmUp(UserService userService, UserDao userDao, Settings settings) {
+        this(userService, userDao, settings, HibernateUtil::primeConnectionPool, System::nanoTime);
+    }
+
+    /**
+     * @param connectionPool opens the pools' minimum connections and returns how many were opened
+     */
+    UserServiceWarmUp(UserService userService, UserDao userDao, Settings settings,
+                      IntSupplier connectionPool, LongSupplier ticker) {
+        this.userService = userService;
+        this.userDao = userDao;
+        this.settings = settings;
+        this.connectionPool = connectionPool;
+        this.ticker = ticker;
+    }
+
+    public Result run() {
+        Result result = new Result();
+        if (!settings.isEnabled()) {
+            logger.info("Warm-up disabled");
+            return result;
+        }
+        long start = ticker.getAsLong();
+        long deadline = start + settings.getMaxDuration().toNanos();
+
+        step("Warm-up: connection pool", () -> result.connections = connectionPool.getAsInt());
+        step("Warm-up: query plans", () -> {
+            userDao.findById(probeId(0));
+            userDao.findByEmail(probeEmail(0));
+        });
+        step("Warm-up: synthetic workload", () -> {
+            for (int i = 0; i < settings.getIterations() && ticker.getAsLong() < deadline; i++) {
+                // probe 0 was used for the query plans
+                userService.getUserById(probeId(i + 1));
+                userService.getUserByEmail(probeEmail(i + 1));
+                result.iterations++;
+            }
+        });
+        if (settings.getPreloadUsers() > 0) {
+            step("Warm-up: preload recent users",
+                    () -> result.preloadedUsers = userDao.findRecent(settings.getPreloadUsers()).size());
+        }
+
+        result.elapsedNanos = ticker.getAsLong() - start;
+        logger.info("Warm-up finished: {}", result);
+        return result;
+    }
+
+    private static void step(String phase, Runnable work) {
+        try {
+            StartupReport.time(phase, () -> {
+                work.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("{} failed, continuing startup: {}", phase, e.getMessage(), e);
+        }
+    }
+
+    private static Long probeId(int i) {
+        return -1L - i;
+    }
+
+    private static String probeEmail(int i) {
+        return "warm-up-" + i + "@warm-up.invalid";
+    }
+
+    public static class Result {
+
+        private int connections;
+        private int iterations;
+        private int preloadedUsers;
+        private long elapsedNanos;
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public int getPreloadedUsers() {
+            return preloadedUsers;
+        }
+
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "connections=" + connections +
+                    ", iterations=" + iterations +
+                    ", preloadedUsers=" + preloadedUsers +
+                    ", elapsed=" + getElapsed().toMillis() + " ms";
+        }
+    }
+
+    public static class Settings {
+
+        private final int iterations;
+        private final int preloadUsers;
+        private final Duration maxDuration;
+
+        public Settings(int iterations, int preloadUsers, Duration maxDuration) {
+            if (iterations < 0 || preloadUsers < 0) {
+                throw new IllegalArgumentException("Warm-up iterations and preloaded users cannot be negative");
+            }
+            if (maxDuration == null || maxDuration.isNegative() || maxDuration.isZero()) {
+                throw new IllegalArgumentException("Warm-up duration must be positive");
+            }
+            this.iterations = iterations;
+            this.preloadUsers = preloadUsers;
+            this.maxDuration = maxDuration;
+        }
+
+        public static Settings defaults() {
+            return new Settings(2_000, 0, Duration.ofSeconds(30));
+        }
+
+        public static Settings disabled() {
+            return new Settings(0, 0, Duration.ofSeconds(1));
+        }
+
+        /**
+         * Defaults overridden by {@code -Dapp.warmUp.iterations}, {@code -Dapp.warmUp.preloadUsers} and
+         * {@code -Dapp.warmUp.maxSeconds}; with no iterations and no preloaded users the warm-up is skipped.
+         */
+        public static Settings fromSystemProperties() {
+            Settings defaults = defaults();
+            return new Settings(
+                    Integer.getInteger(ITERATIONS_PROPERTY, defaults.iterations),
+                    Integer.getInteger(PRELOAD_USERS_PROPERTY, defaults.preloadUsers),
+                    Duration.ofSeconds(Long.getLong(MAX_DURATION_PROPERTY, defaults.maxDuration.getSeconds())));
+        }
+
+        public boolean isEnabled() {
+            return iterations > 0 || preloadUsers > 0;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public int getPreloadUsers() {
+            return preloadUsers;
+        }
+
+        public Duration getMaxDuration() {
+            return maxDuration;
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package service.impl;
+
+import models.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process fuzzy search over user names and emails, for type-ahead lookups that a
+ * {@code LIKE '%x%'} on the user table cannot serve at scale.
+ * <p>
+ * Names and emails are split into words of letters and digits, and every word into lower-case
+ * trigrams padded like PostgreSQL's pg_trgm ("john" gives {@code "  j", " jo", "joh", "ohn", "hn "}),
+ * so a query still matches with a typo or a missing tail. Results are ranked by trigram similarity, the number of
+ * trigrams shared with the query over the number of trigrams in either.
+ * <p>
+ * Everything is held in primitive arrays: each user has a slot (its id and trigram count), and each
+ * trigram a sorted {@code int[]} posting list of the slots that contain it. A search collects
+ * candidates from the rarest trigrams of the query (at most {@value #MAX_SCANNED_POSTINGS} posting
+ * entries) and only then counts the longer lists for those candidates, with a galloping merge, so its
+ * cost follows the selectivity of the query rather than the table size. Trigrams shared by more than
+ * 1/{@value #STOP_TRIGRAM_SHARE} of the users (those of a mail domain, say) are not counted at all, and
+ * when even the rarest trigram of the query is that common, only the users first indexed with it are
+ * considered.
+ * <p>
+ * Memory: a posting entry is 4 bytes and a user has about 25-35 distinct trigrams, plus 12 bytes for
+ * its slot and 24 for the id lookup table, so roughly 180 bytes per user with growth slack: about
+ * 180 MB per million users (see {@link #getEstimatedBytes()}). Every thread that searches also keeps a
+ * scratch array of 4 bytes per slot.
+ * <p>
+ * Thread-safe: searches share a read lock, changes take the write lock. Removed and updated users leave
+ * a dead slot behind until dead slots outnumber live ones, when the postings are compacted.
+ */
+public class UserTrigramIndex {
+
+    // candidate generation scans the rarest posting lists up to this many entries in total
+    private static final int MAX_SCANNED_POSTINGS = 8_192;
+    // trigrams of more than this share (1/n) of the users are not counted for the candidates
+    private static final int STOP_TRIGRAM_SHARE = 16;
+    private static final int MIN_COMPACTION_SLOTS = 1_024;
+    private static final long DEAD = 0;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    // by slot: the user id (DEAD once removed) and its number of distinct trigrams
+    private long[] ids = new long[1_024];
+    private int[] gramCounts = new int[1_024];
+    private int slots;
+    private int deadSlots;
+    private final LongIntMap slotsById = new LongIntMap();
+
+    // by trigram number: the slots containing it, ascending
+    private final LongIntMap gramNumbers = new LongIntMap();
+    private int[][] postings = new int[1_024][];
+    private int[] postingSizes = new int[1_024];
+    private int grams;
+
+    /**
+     * Replaces the contents of the index with the given users, e.g. a stream over the whole table.
+     * Changes made meanwhile wait until the build is done.
+     */
+    public void rebuild(Stream<User> users) {
+        lock.writeLock().lock();
+        try {
+            ids = new long[1_024];
+            gramCounts = new int[1_024];
+            slots = 0;
+            deadSlots = 0;
+            slotsById.clear();
+            gramNumbers.clear();
+            postings = new int[1_024][];
+            postingSizes = new int[1_024];
+            grams = 0;
+            users.forEach(user -> add(user.getId(), user.getName(), user.getEmail()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the user, or replaces its name and email if it is indexed already.
+     */
+    public void put(User user) {
+        if (user.getId() == null) {
+            throw new IllegalArgumentException("Only stored users can be indexed");
+        }
+        lock.writeLock().lock();
+        try {
+            if (removeSlot(user.getId())) {
+                maybeCompact();
+            }
+            add(user.getId(), user.getName(), user.getEmail());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the user was indexed
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = removeSlot(id);
+            if (removed) {
+                maybeCompact();
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} (at most 1024) users sharing at least one trigram with the text,
+     * most similar first
+     */
+    public List<Match> search(String text, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        long[] queryGrams = trigrams(text, null);
+        if (queryGrams.length == 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return rank(queryGrams, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed users
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots - deadSlots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the approximate heap used by the index's arrays, excluding per-thread search scratch
+     */
+    public long getEstimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 8L * ids.length + 4L * gramCounts.length
+                    + 8L * postings.length + 4L * postingSizes.length
+                    + slotsById.getEstimatedBytes() + gramNumbers.getEstimatedBytes();
+            for (int i = 0; i < grams; i++) {
+                bytes += 16 + 4L * postings[i].length;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "UserTrigramIndex{" +
+                "users=" + size() +
+                ", trigrams=" + grams +
+                ", estimatedMb=" + getEstimatedBytes() / (1024 * 1024) +
+                '}';
+    }
+
+    private List<Match> rank(long[] queryGrams, int limit) {
+        // posting lists of the query's trigrams, rarest first; trigrams nobody has are left out
+        int[] lists = new int[queryGrams.length];
+        int listCount = 0;
+        for (long gram : queryGrams) {
+            int number = gramNumbers.get(gram);
+            if (number >= 0 && postingSizes[number] > 0) {
+                int i = listCount++;
+                while (i > 0 && postingSizes[lists[i - 1]] > postingSizes[number]) {
+                    lists[i] = lists[i - 1];
+                    i--;
+                }
+                lists[i] = number;
+            }
+        }
+        if (listCount == 0) {
+            return List.of();
+        }
+
+        Scratch work = scratch.get();
+        work.ensureCapacity(slots);
+        int[] shared = work.shared;
+        int touched = 0;
+        int scannedLists = 0;
+        long scanned = 0;
+        while (scannedLists < listCount) {
+            int number = lists[scannedLists];
+            if (scannedLists > 0 && scanned + postingSizes[number] > MAX_SCANNED_POSTINGS) {
+                break;
+            }
+            scannedLists++;
+            int[] posting = postings[number];
+            // even the rarest list is cut off, so an unselective query stays cheap
+            int end = Math.min(postingSizes[number], MAX_SCANNED_POSTINGS);
+            for (int i = 0; i < end; i++) {
+                int slot = posting[i];
+                if (shared[slot]++ == 0) {
+                    touched = work.touch(touched, slot);
+                }
+            }
+            scanned += end;
+        }
+        // the candidates' counts in the remaining, longer lists: a galloping merge of the sorted
+        // candidates with each list, which touches only a small part of it
+        int[] candidates = work.touched;
+        Arrays.sort(candidates, 0, touched);
+        int live = slots - deadSlots;
+        for (int l = scannedLists; l < listCount; l++) {
+            int[] posting = postings[lists[l]];
+            int size = postingSizes[lists[l]];
+            if (size > live / STOP_TRIGRAM_SHARE) {
+                // lists are sorted by length, so the rest are as common: expensive to count, little to rank by
+                break;
+            }
+            int from = 0;
+            for (int c = 0; c < touched && from < size; c++) {
+                int slot = candidates[c];
+                int bound = 1;
+                while (from + bound < size && posting[from + bound] < slot) {
+                    bound <<= 1;
+                }
+                int found = Arrays.binarySearch(posting, from + (bound >> 1), Math.min(from + bound + 1, size), slot);
+                if (found >= 0) {
+                    shared[slot]++;
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+        }
+
+        TopMatches top = new TopMatches(limit);
+        for (int c = 0; c < touched; c++) {
+            int slot = candidates[c];
+            int common = shared[slot];
+            shared[slot] = 0;
+            if (ids[slot] != DEAD) {
+                top.offer(slot, common / (double) (queryGrams.length + gramCounts[slot] - common));
+            }
+        }
+        return top.toMatches(ids);
+    }
+
+    private void add(Long id, String name, String email) {
+        long[] userGrams = trigrams(name, email);
+        if (slots == ids.length) {
+            ids = Arrays.copyOf(ids, slots * 2);
+            gramCounts = Arrays.copyOf(gramCounts, slots * 2);
+        }
+        int slot = slots++;
+        ids[slot] = id;
+        gramCounts[slot] = userGrams.length;
+        slotsById.put(id, slot);
+        for (long gram : userGrams) {
+            int number = gramNumbers.get(gram);
+            if (number < 0) {
+                number = newGram(gram);
+            }
+            int[] posting = postings[number];
+            int size = postingSizes[number];
+            if (size == posting.length) {
+                posting = Arrays.copyOf(posting, size + (size >> 1) + 1);
+                postings[number] = posting;
+            }
+            posting[size] = slot;
+            postingSizes[number] = size + 1;
+        }
+    }
+
+    private int newGram(long gram) {
+        if (grams == postings.length) {
+            postings = Arrays.copyOf(postings, grams * 2);
+            postingSizes = Arrays.copyOf(postingSizes, grams * 2);
+        }
+        int number = grams++;
+        postings[number] = new int[2];
+        gramNumbers.put(gram, number);
+        return number;
+    }
+
+    private boolean removeSlot(long id) {
+        int slot = slotsById.remove(id);
+        if (slot < 0) {
+            return false;
+        }
+        ids[slot] = DEAD;
+        deadSlots++;
+        return true;
+    }
+
+    private void maybeCompact() {
+        if (deadSlots >= MIN_COMPACTION_SLOTS && deadSlots > slots - deadSlots) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumbers the live slots densely, in their current order, so every posting list stays sorted.
+     */
+    private void compact() {
+        int[] renumbered = new int[slots];
+        int live = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (ids[slot] == DEAD) {
+                renumbered[slot] = -1;
+            } else {
+                renumbered[slot] = live;
+                ids[live] = ids[slot];
+                gramCounts[live] = gramCounts[slot];
+                slotsById.put(ids[live], live);
+                live++;
+            }
+        }
+        Arrays.fill(ids, live, slots, DEAD);
+        for (int number = 0; number < grams; number++) {
+            int[] posting = postings[number];
+            int size = 0;
+            for (int i = 0; i < postingSizes[number]; i++) {
+                int slot = renumbered[posting[i]];
+                if (slot >= 0) {
+                    posting[size++] = slot;
+                }
+            }
+            postingSizes[number] = size;
+            if (size < posting.length / 4) {
+                postings[number] = Arrays.copyOf(posting, Math.max(2, size));
+            }
+        }
+        slots = live;
+        deadSlots = 0;
+    }
+
+    /**
+     * @return the distinct trigrams of the texts, sorted; a trigram's three chars are packed into a long
+     */
+    static long[] trigrams(String first, String second) {
+        long[] result = new long[32];
+        int count = 0;
+        for (String text : new String[]{first, second}) {
+            if (text == null) {
+                continue;
+            }
+            String lower = text.toLowerCase(Locale.ROOT);
+            int i = 0;
+            while (i < lower.length()) {
+                while (i < lower.length() && !Character.isLetterOrDigit(lower.charAt(i))) {
+                    i++;
+                }
+                int start = i;
+                while (i < lower.length() && Character.isLetterOrDigit(lower.charAt(i))) {
+                    i++;
+                }
+                if (i == start) {
+                    break;
+                }
+                // the word padded with two spaces in front and one behind
+                if (count + i - start + 1 > result.length) {
+                    result = Arrays.copyOf(result, Math.max(result.length * 2, count + i - start + 1));
+                }
+                char a = ' ';
+                char b = ' ';
+                for (int k = start; k <= i; k++) {
+                    char c = k < i ? lower.charAt(k) : ' ';
+                    result[count++] = ((long) a << 32) | ((long) b << 16) | c;
+                    a = b;
+                    b = c;
+                }
+            }
+        }
+        Arrays.sort(result, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || result[distinct - 1] != result[i]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    public static class Match {
+
+        private final long id;
+        private final double score;
+
+        Match(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * @return the trigram similarity to the query, from 0 (exclusive) to 1 (identical trigrams)
+         */
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return "Match{id=" + id + ", score=" + score + '}';
+        }
+    }
+
+    /**
+     * Per-thread work arrays of a search: the shared-trigram count per slot (all zero between
+     * searches) and the slots touched.
+     */
+    private static class Scratch {
+
+        private int[] shared = new int[0];
+        private int[] touched = new int[256];
+
+        void ensureCapacity(int slots) {
+            if (shared.length < slots) {
+                shared = new int[Math.max(slots, shared.length + (shared.length >> 1))];
+            }
+        }
+
+        int touch(int count, int slot) {
+            if (count == touched.length) {
+                touched = Arrays.copyOf(touched, count * 2);
+            }
+            touched[count] = slot;
+            return count + 1;
+        }
+    }
+
+    /**
+     * Min-heap of the best {@code limit} slots by score.
+     */
+    private static class TopMatches {
+
+        private final int[] slots;
+        private final double[] scores;
+        private int size;
+
+        TopMatches(int limit) {
+            this.slots = new int[Math.min(limit, 1_024)];
+            this.scores = new double[slots.length];
+        }
+
+        void offer(int slot, double score) {
+            if (size < slots.length) {
+                int i = size++;
+                while (i > 0 && scores[(i - 1) / 2] > score) {
+                    slots[i] = slots[(i - 1) / 2];
+                    scores[i] = scores[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                slots[i] = slot;
+                scores[i] = score;
+            } else if (score > scores[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && scores[child + 1] < scores[child]) {
+                        child++;
+                    }
+                    if (scores[child] >= score) {
+                        break;
+                    }
+                    slots[i] = slots[child];
+                    scores[i] = scores[child];
+                    i = child;
+                }
+                slots[i] = slot;
+                scores[i] = score;
+            }
+        }
+
+        List<Match> toMatches(long[] ids) {
+            List<Match> matches = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                matches.add(new Match(ids[slots[i]], scores[i]));
+            }
+            matches.sort((x, y) -> x.score != y.score ? Double.compare(y.score, x.score) : Long.compare(x.id, y.id));
+            return matches;
+        }
+    }
+
+    /**
+     * Open-addressing hash map from non-zero long keys to int values, without boxing; -1 means absent.
+     */
+    private static class LongIntMap {
+
+        private long[] keys = new long[1_024];
+        private int[] values = new int[1_024];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == 0) {
+                    return -1;
+                }
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == 0) {
+                    keys[i] = key;
+                    values[i] = value;
+                    size++;
+                    return;
+                }
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+        }
+
+        int remove(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != key) {
+                if (keys[i] == 0) {
+                    return -1;
+                }
+                i = (i + 1) & mask;
+            }
+            int value = values[i];
+            // shift later entries of the probe sequence back into the gap
+            int gap = i;
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                boolean homeInGap = gap <= j ? home > gap && home <= j : home > gap || home <= j;
+                if (!homeInGap) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = 0;
+            size--;
+            return value;
+        }
+
+        void clear() {
+            keys = new long[1_024];
+            values = new int[1_024];
+            size = 0;
+        }
+
+        long getEstimatedBytes() {
+            return 12L * keys.length;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[capacity];
+            values = new int[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The values bound to a {@link SlowQueryStatement}, kept the way they were set: primitives in a
+ * {@code long[]} and references as is, so recording a parameter neither boxes nor allocates once
+ * the slots have grown. {@link #toList()} turns them into objects, which only happens for
+ * statements that were slow enough to be logged.
+ */
+final class BoundParameters {
+
+    private static final byte UNSET = 0;
+    private static final byte NULL = 1;
+    private static final byte OBJECT = 2;
+    private static final byte STREAM = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte DOUBLE = 7;
+
+    private static final String STREAM_PLACEHOLDER = "<stream>";
+    private static final int INITIAL_SLOTS = 8;
+
+    private byte[] kinds = new byte[INITIAL_SLOTS];
+    private long[] primitives = new long[INITIAL_SLOTS];
+    private Object[] objects = new Object[INITIAL_SLOTS];
+    private int count;
+
+    void setNull(int index) {
+        slot(index, NULL);
+    }
+
+    void setObject(int index, Object value) {
+        objects[slot(index, value == null ? NULL : OBJECT)] = value;
+    }
+
+    /**
+     * Streams, readers and LOBs are not kept: they can be read only once.
+     */
+    void setStream(int index) {
+        slot(index, STREAM);
+    }
+
+    void setBoolean(int index, boolean value) {
+        primitives[slot(index, BOOLEAN)] = value ? 1 : 0;
+    }
+
+    void setInt(int index, int value) {
+        primitives[slot(index, INT)] = value;
+    }
+
+    void setLong(int index, long value) {
+        primitives[slot(index, LONG)] = value;
+    }
+
+    void setDouble(int index, double value) {
+        primitives[slot(index, DOUBLE)] = Double.doubleToRawLongBits(value);
+    }
+
+    void clear() {
+        Arrays.fill(kinds, 0, count, UNSET);
+        Arrays.fill(objects, 0, count, null);
+        count = 0;
+    }
+
+    List<Object> toList() {
+        List<Object> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(valueAt(i));
+        }
+        return values;
+    }
+
+    private Object valueAt(int slot) {
+        switch (kinds[slot]) {
+            case OBJECT:
+                return objects[slot];
+            case STREAM:
+                return STREAM_PLACEHOLDER;
+            case BOOLEAN:
+                return primitives[slot] != 0;
+            case INT:
+                return (int) primitives[slot];
+            case LONG:
+                return primitives[slot];
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[slot]);
+            default:
+                return null;
+        }
+    }
+
+    private int slot(int index, byte kind) {
+        int slot = index - 1;
+        if (slot >= kinds.length) {
+            int length = Math.max(slot + 1, kinds.length * 2);
+            kinds = Arrays.copyOf(kinds, length);
+            primitives = Arrays.copyOf(primitives, length);
+            objects = Arrays.copyOf(objects, length);
+        }
+        kinds[slot] = kind;
+        objects[slot] = null;
+        count = Math.max(count, index);
+        return slot;
+    }
+}
@@ -0,0 +1,61 @@
+package util;
+
+/**
+ * Point-in-time view of the JDBC connection pool, used to size min/max pool settings.
+ */
+public class ConnectionPoolStats {
+
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int threadsAwaitingConnection;
+    private final long acquireTimeouts;
+    private final LatencyHistogram.Snapshot acquireLatency;
+
+    public ConnectionPoolStats(int activeConnections, int idleConnections, int totalConnections,
+                               int threadsAwaitingConnection, long acquireTimeouts,
+                               LatencyHistogram.Snapshot acquireLatency) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+        this.acquireTimeouts = acquireTimeouts;
+        this.acquireLatency = acquireLatency;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaitingConnection;
+    }
+
+    public long getAcquireTimeouts() {
+        return acquireTimeouts;
+    }
+
+    public LatencyHistogram.Snapshot getAcquireLatency() {
+        return acquireLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+                "active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", total=" + totalConnections +
+                ", waiting=" + threadsAwaitingConnection +
+                ", acquireTimeouts=" + acquireTimeouts +
+                ", acquireLatency=[" + acquireLatency + "]" +
+                '}';
+    }
+}
@@ -0,0 +1,16 @@
+package util;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Reports every statement Hibernate prepares to the {@link SqlStatementCounter} of the current
+ * thread; the SQL itself is passed through unchanged.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementCounter.statementPrepared(sql);
+        return sql;
+    }
+}
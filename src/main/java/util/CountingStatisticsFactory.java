@@ -0,0 +1,32 @@
+package util;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * Hibernate's standard statistics, additionally reporting each entity loaded from the database
+ * as a fetched row to the {@link SqlStatementCounter} of the current thread. Only active while
+ * {@code hibernate.generate_statistics} is on.
+ */
+public class CountingStatisticsFactory implements StatisticsFactory {
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new CountingStatistics(sessionFactory);
+    }
+
+    private static class CountingStatistics extends StatisticsImpl {
+
+        private CountingStatistics(SessionFactoryImplementor sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void loadEntity(String entityName) {
+            super.loadEntity(entityName);
+            SqlStatementCounter.rowFetched();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one UserDao operation: the statements it ran and the rows it returned or changed.
+ */
+@Name("app.DaoQuery")
+@Label("DAO Query")
+@Category({"User Service", "Data Access"})
+@Description("A UserDao operation, from opening or joining its Session until the result is available")
+@StackTrace(false)
+public class DaoQueryEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Rows")
+    @Description("Rows returned, inserted, updated or deleted")
+    public long rows;
+
+    @Label("Successful")
+    public boolean successful;
+}
@@ -0,0 +1,35 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event spanning the lifetime of a Hibernate Session or StatelessSession, from open to close.
+ */
+@Name("app.HibernateSession")
+@Label("Hibernate Session")
+@Category({"User Service", "Hibernate"})
+@Description("A Hibernate session from open to close")
+@StackTrace(false)
+public class HibernateSessionEvent extends Event {
+
+    @Label("Statements")
+    @Description("JDBC statements executed in the session")
+    public int statements;
+
+    @Label("Flushes")
+    public int flushes;
+
+    @Label("Transactions")
+    @Description("Transactions completed in the session")
+    public int transactions;
+
+    @Label("Connection Acquire Time")
+    @Timespan
+    public long connectionAcquireNanos;
+}
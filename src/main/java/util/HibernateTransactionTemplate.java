@@ -0,0 +1,56 @@
+package util;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Binds the factory's current Session (hibernate.current_session_context_class=thread) and a
+ * transaction to the calling thread for the duration of the work. Nested calls join the
+ * outer unit of work; only the outermost call commits or rolls back.
+ */
+public class HibernateTransactionTemplate implements TransactionTemplate {
+
+    private static final Logger logger = LoggerFactory.getLogger(HibernateTransactionTemplate.class);
+
+    private final SessionFactory sessionFactory;
+
+    public HibernateTransactionTemplate(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        if (UnitOfWork.isActive()) {
+            return work.get();
+        }
+
+        Session session = sessionFactory.getCurrentSession();
+        Transaction transaction = session.beginTransaction();
+        UnitOfWork unitOfWork = UnitOfWork.begin(sessionFactory, session);
+        try {
+            T result = work.get();
+            TransactionCommitEvent.commit(transaction, "unitOfWork");
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (transaction.isActive()) {
+                try {
+                    transaction.rollback();
+                } catch (RuntimeException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+            }
+            logger.debug("Unit of work rolled back: {}", e.getMessage());
+            throw e;
+        } finally {
+            if (session.isOpen()) {
+                session.close();
+            }
+            unitOfWork.end();
+        }
+    }
+}
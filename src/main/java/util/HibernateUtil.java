@@ -1,24 +1,59 @@
 package util;
 
 import org.hibernate.SessionFactory;
-import org.hibernate.cfg.Configuration;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Builds the application's SessionFactory from hibernate.cfg.xml, timing each bootstrap phase in
+ * the {@link StartupReport}.
+ * <p>
+ * With {@code -Dapp.fastBoot=true} the factory skips the work that does not have to happen on the
+ * critical path: no schema inspection ({@code hbm2ddl.auto=none}; run {@link SchemaTool} as a
+ * separate deployment step), no JDBC metadata lookup at boot (the dialect is configured explicitly),
+ * and the pool starts without waiting for a first connection.
+ * <p>
+ * Read-only replica SessionFactories are built the same way for every url in {@code -Dapp.replicaUrls}
+ * (see {@link ReadReplicas}).
+ */
 public class HibernateUtil {
 
+    public static final String FAST_BOOT_PROPERTY = "app.fastBoot";
+
     private static final Logger logger = LoggerFactory.getLogger(HibernateUtil.class);
     private static final SessionFactory sessionFactory;
+    private static final List<SessionFactory> replicaSessionFactories = new ArrayList<>();
 
     static {
         try {
-            sessionFactory = new Configuration()
-                    .configure("hibernate.cfg.xml")
-                    .buildSessionFactory();
-            logger.info("Hibernate SessionFactory initialized successfully");
+            boolean fastBoot = Boolean.getBoolean(FAST_BOOT_PROPERTY);
+            sessionFactory = build("Hibernate", Map.of(), fastBoot);
+            logger.info("Hibernate SessionFactory initialized successfully{}", fastBoot ? " (fast boot)" : "");
+
+            List<String> replicaUrls = ReadReplicas.urlsFromSystemProperties();
+            for (int i = 0; i < replicaUrls.size(); i++) {
+                replicaSessionFactories.add(build("Hibernate replica " + i, ReadReplicas.settings(replicaUrls.get(i), i), fastBoot));
+            }
+            if (!replicaUrls.isEmpty()) {
+                logger.info("{} read replica SessionFactories initialized", replicaUrls.size());
+            }
         } catch (Exception e) {
             logger.error("Initial SessionFactory creation failed: {}", e.getMessage(), e);
+            shutdown();
             throw new ExceptionInInitializerError(e);
         }
     }
@@ -27,10 +62,89 @@ public class HibernateUtil {
         return sessionFactory;
     }
 
+    /**
+     * @return the read-only SessionFactories of the replicas in {@code -Dapp.replicaUrls}, empty if none are configured
+     */
+    public static List<SessionFactory> getReplicaSessionFactories() {
+        return Collections.unmodifiableList(replicaSessionFactories);
+    }
+
+    public static Statistics getStatistics() {
+        return sessionFactory.getStatistics();
+    }
+
+    public static ConnectionPoolStats getConnectionPoolStats() {
+        return pooledConnectionProvider(sessionFactory).getStats();
+    }
+
+    /**
+     * Opens the minimum number of connections up front (see {@link PooledConnectionProvider#prime()}),
+     * in the primary pool and in the pool of every read replica.
+     *
+     * @return the number of connections opened, over all pools
+     */
+    public static int primeConnectionPool() {
+        int opened = prime(sessionFactory);
+        for (SessionFactory replica : replicaSessionFactories) {
+            opened += prime(replica);
+        }
+        return opened;
+    }
+
+    private static int prime(SessionFactory factory) {
+        try {
+            return pooledConnectionProvider(factory).prime();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open the connection pool's minimum connections", e);
+        }
+    }
+
     public static void shutdown() {
+        for (SessionFactory replica : replicaSessionFactories) {
+            if (!replica.isClosed()) {
+                replica.close();
+            }
+        }
         if (sessionFactory != null && !sessionFactory.isClosed()) {
             sessionFactory.close();
             logger.info("Hibernate SessionFactory closed");
         }
     }
+
+    private static SessionFactory build(String name, Map<String, Object> overrides, boolean fastBoot) {
+        StandardServiceRegistry registry = StartupReport.time(name + ": configuration", () -> {
+            StandardServiceRegistryBuilder builder = new StandardServiceRegistryBuilder()
+                    .configure("hibernate.cfg.xml")
+                    .applySettings(overrides);
+            if (fastBoot) {
+                applyFastBootSettings(builder);
+            }
+            return builder.build();
+        });
+        try {
+            Metadata metadata = StartupReport.time(name + ": mapping metadata",
+                    () -> new MetadataSources(registry).buildMetadata());
+            return StartupReport.time(name + ": session factory (pool, cache, schema)", metadata::buildSessionFactory);
+        } catch (RuntimeException e) {
+            StandardServiceRegistryBuilder.destroy(registry);
+            throw e;
+        }
+    }
+
+    private static PooledConnectionProvider pooledConnectionProvider(SessionFactory factory) {
+        ConnectionProvider provider = factory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (provider == null || !provider.isUnwrappableAs(PooledConnectionProvider.class)) {
+            throw new IllegalStateException("The configured ConnectionProvider is not a PooledConnectionProvider");
+        }
+        return provider.unwrap(PooledConnectionProvider.class);
+    }
+
+    private static void applyFastBootSettings(StandardServiceRegistryBuilder builder) {
+        builder.applySetting(AvailableSettings.HBM2DDL_AUTO, "none");
+        builder.applySetting(AvailableSettings.ALLOW_METADATA_ON_BOOT, false);
+        // HikariCP otherwise opens and validates a first connection before the pool constructor returns
+        builder.applySetting("hibernate.hikari.initializationFailTimeout", "-1");
+    }
 }
@@ -0,0 +1,63 @@
+package util;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Per-session Hibernate listener (registered as {@code hibernate.session.events.auto} in
+ * hibernate.cfg.xml): emits a {@link HibernateSessionEvent} when the session closes, and reports
+ * every statement execution and batch to the {@link SqlStatementCounter} of the current thread.
+ * When no JFR recording has the event enabled, only the enabled check runs.
+ */
+public class InstrumentingSessionEventListener implements SessionEventListener {
+
+    private final transient HibernateSessionEvent event = new HibernateSessionEvent();
+    private long connectionAcquireStart;
+
+    public InstrumentingSessionEventListener() {
+        event.begin();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        if (event.isEnabled()) {
+            connectionAcquireStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        if (event.isEnabled()) {
+            event.connectionAcquireNanos += System.nanoTime() - connectionAcquireStart;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        event.statements++;
+        SqlStatementCounter.roundTrip();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        event.statements++;
+        SqlStatementCounter.roundTrip();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        event.flushes++;
+    }
+
+    @Override
+    public void transactionCompletion(boolean successful) {
+        event.transactions++;
+    }
+
+    @Override
+    public void end() {
+        event.end();
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a UTF-8 text file line by line through read-only memory-mapped windows, so files of any size
+ * are scanned without copying them through a read buffer and with constant heap use (one line at a
+ * time). Lines end with {@code \n} or {@code \r\n}; a leading byte order mark is skipped.
+ * Not thread-safe.
+ */
+public class MappedLineReader implements AutoCloseable {
+
+    private static final long DEFAULT_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowBytes;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private byte[] line = new byte[256];
+
+    public MappedLineReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_BYTES);
+    }
+
+    MappedLineReader(Path file, long windowBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowBytes = windowBytes;
+        if (nextWindow() && window.remaining() >= 3
+                && (window.get(0) & 0xFF) == 0xEF && (window.get(1) & 0xFF) == 0xBB && (window.get(2) & 0xFF) == 0xBF) {
+            window.position(3);
+        }
+    }
+
+    /**
+     * @return the next line without its terminator, or null at the end of the file
+     */
+    public String readLine() throws IOException {
+        int length = 0;
+        boolean any = false;
+        while (true) {
+            if (window == null || !window.hasRemaining()) {
+                if (!nextWindow()) {
+                    return any ? decode(length) : null;
+                }
+            }
+            byte b = window.get();
+            any = true;
+            if (b == '\n') {
+                return decode(length);
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+    }
+
+    /**
+     * @return the number of bytes consumed so far
+     */
+    public long getPosition() {
+        return window == null ? size : windowStart + window.position();
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private boolean nextWindow() throws IOException {
+        long start = window == null ? windowStart : windowStart + window.limit();
+        if (start >= size) {
+            window = null;
+            windowStart = size;
+            return false;
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowBytes, size - start));
+        windowStart = start;
+        return true;
+    }
+
+    private String decode(int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,33 @@
+package util;
+
+/**
+ * JMX view of one instrumented operation, registered by {@link OperationMetrics#registerMBeans()}.
+ * Latencies are in milliseconds, throughput in calls per second since the metrics were created;
+ * SQL counts are totals over all calls (see {@link SqlStatementCounter}).
+ */
+public interface OperationMXBean {
+
+    long getCallCount();
+
+    long getErrorCount();
+
+    long getStatementCount();
+
+    long getRoundTripCount();
+
+    long getRowsFetched();
+
+    double getStatementsPerCall();
+
+    double getThroughput();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+}
@@ -0,0 +1,306 @@
+package util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Call counts, error counts and latency histograms for the operations of one component
+ * (e.g. "UserDao"). Decorators look their {@link Operation}s up once and record every call
+ * into them; recording only touches LongAdders and a {@link LatencyHistogram}, so it does not allocate.
+ * Calls made through {@link Operation#call} and {@link Operation#run} also add up the SQL
+ * statements, round trips and fetched rows the calling thread issued meanwhile, taken from the
+ * thread's primitive {@link SqlStatementCounter} totals.
+ * <p>
+ * The numbers can be published as MXBeans named {@code App:type=<component>,name=<operation>}
+ * and printed with {@link #dump()}.
+ */
+public class OperationMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationMetrics.class);
+    private static final String JMX_DOMAIN = "App";
+
+    private final String component;
+    private final LongSupplier ticker;
+    private volatile long startedAt;
+    private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<>();
+    private volatile boolean registered;
+
+    public OperationMetrics(String component) {
+        this(component, System::nanoTime);
+    }
+
+    OperationMetrics(String component, LongSupplier ticker) {
+        this.component = component;
+        this.ticker = ticker;
+        this.startedAt = ticker.getAsLong();
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    /**
+     * @return the metrics of the named operation, created on first use
+     */
+    public Operation operation(String name) {
+        return operations.computeIfAbsent(name, key -> {
+            Operation operation = new Operation(key);
+            if (registered) {
+                register(operation);
+            }
+            return operation;
+        });
+    }
+
+    /**
+     * Registers every operation, including ones created later, with the platform MBeanServer.
+     */
+    public synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        for (Operation operation : operations.values()) {
+            register(operation);
+        }
+    }
+
+    public synchronized void unregisterMBeans() {
+        if (!registered) {
+            return;
+        }
+        registered = false;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Operation operation : operations.values()) {
+            try {
+                ObjectName name = objectName(operation);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                logger.warn("Could not unregister MBean for {}.{}: {}", component, operation.name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Zeroes the counts and latencies of every operation and restarts the throughput clock, e.g. to
+     * drop the synthetic calls of a startup warm-up. Operations and MBean registrations are kept.
+     */
+    public void reset() {
+        for (Operation operation : operations.values()) {
+            operation.reset();
+        }
+        startedAt = ticker.getAsLong();
+    }
+
+    /**
+     * Text snapshot of all operations, one line each, sorted by name.
+     */
+    public String dump() {
+        StringBuilder text = new StringBuilder(component).append('\n');
+        if (operations.isEmpty()) {
+            return text.append("  (no calls yet)\n").toString();
+        }
+        for (Operation operation : new TreeMap<>(operations).values()) {
+            text.append(String.format("  %-20s %s%n", operation.name, operation));
+        }
+        return text.toString();
+    }
+
+    public Map<String, Operation> getOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    @Override
+    public String toString() {
+        return dump();
+    }
+
+    ObjectName objectName(Operation operation) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=" + ObjectName.quote(component)
+                + ",name=" + ObjectName.quote(operation.name));
+    }
+
+    private void register(Operation operation) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = objectName(operation);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(operation, name);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not register MBean for {}.{}: {}", component, operation.name, e.getMessage());
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public class Operation implements OperationMXBean {
+
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder roundTrips = new LongAdder();
+        private final LongAdder rowsFetched = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public <T> T call(Supplier<T> call) {
+            long start = ticker.getAsLong();
+            SqlStatementCounter.ThreadTotals sql = SqlStatementCounter.threadTotals();
+            long statementsBefore = sql.getStatements();
+            long roundTripsBefore = sql.getRoundTrips();
+            long rowsFetchedBefore = sql.getRowsFetched();
+            boolean failed = true;
+            try {
+                T result = call.get();
+                failed = false;
+                return result;
+            } finally {
+                record(start, failed);
+                statements.add(sql.getStatements() - statementsBefore);
+                roundTrips.add(sql.getRoundTrips() - roundTripsBefore);
+                rowsFetched.add(sql.getRowsFetched() - rowsFetchedBefore);
+            }
+        }
+
+        public void run(Runnable call) {
+            long start = ticker.getAsLong();
+            SqlStatementCounter.ThreadTotals sql = SqlStatementCounter.threadTotals();
+            long statementsBefore = sql.getStatements();
+            long roundTripsBefore = sql.getRoundTrips();
+            long rowsFetchedBefore = sql.getRowsFetched();
+            boolean failed = true;
+            try {
+                call.run();
+                failed = false;
+            } finally {
+                record(start, failed);
+                statements.add(sql.getStatements() - statementsBefore);
+                roundTrips.add(sql.getRoundTrips() - roundTripsBefore);
+                rowsFetched.add(sql.getRowsFetched() - rowsFetchedBefore);
+            }
+        }
+
+        /**
+         * @return the current tick, to be passed to {@link #record(long, boolean)} when the call completes
+         */
+        public long start() {
+            return ticker.getAsLong();
+        }
+
+        public void record(long start, boolean failed) {
+            latency.record(ticker.getAsLong() - start);
+            calls.increment();
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        private void reset() {
+            calls.reset();
+            errors.reset();
+            statements.reset();
+            roundTrips.reset();
+            rowsFetched.reset();
+            latency.reset();
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency.snapshot();
+        }
+
+        @Override
+        public long getCallCount() {
+            return calls.sum();
+        }
+
+        @Override
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        @Override
+        public long getStatementCount() {
+            return statements.sum();
+        }
+
+        @Override
+        public long getRoundTripCount() {
+            return roundTrips.sum();
+        }
+
+        @Override
+        public long getRowsFetched() {
+            return rowsFetched.sum();
+        }
+
+        @Override
+        public double getStatementsPerCall() {
+            long count = getCallCount();
+            return count == 0 ? 0 : getStatementCount() / (double) count;
+        }
+
+        @Override
+        public double getThroughput() {
+            long elapsed = ticker.getAsLong() - startedAt;
+            return elapsed <= 0 ? 0 : getCallCount() / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return latency.snapshot().getMeanNanos() / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public double getP50Millis() {
+            return toMillis(latency.snapshot().getValueAtPercentile(50));
+        }
+
+        @Override
+        public double getP99Millis() {
+            return toMillis(latency.snapshot().getValueAtPercentile(99));
+        }
+
+        @Override
+        public double getP999Millis() {
+            return toMillis(latency.snapshot().getValueAtPercentile(99.9));
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return toMillis(latency.snapshot().getMaxNanos());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("calls=%d, errors=%d, throughput=%.1f/s, sql=%d, roundTrips=%d, rows=%d, %s",
+                    getCallCount(), getErrorCount(), getThroughput(),
+                    getStatementCount(), getRoundTripCount(), getRowsFetched(), latency.snapshot());
+        }
+    }
+}
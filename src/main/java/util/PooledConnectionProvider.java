@@ -0,0 +1,173 @@
+package util;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import org.hibernate.cfg.JdbcSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Hibernate ConnectionProvider backed by a HikariCP pool.
+ * <p>
+ * Pool settings are read from {@code hibernate.hikari.*} properties in hibernate.cfg.xml
+ * (e.g. {@code hibernate.hikari.maximumPoolSize}); the JDBC url, credentials and driver come from
+ * the {@code jakarta.persistence.jdbc.*} settings, or the legacy {@code hibernate.connection.*} ones. When {@code hibernate.slow_query_log.threshold_ms}
+ * is set, handed-out connections report slow statements to a {@link SlowQueryLog}.
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledConnectionProvider.class);
+    private static final String HIKARI_PREFIX = "hibernate.hikari.";
+    // Deprecated hibernate.connection.* names, still used by hibernate.cfg.xml and ReadReplicas;
+    // read when the jakarta.persistence.jdbc.* setting is absent.
+    private static final String LEGACY_URL = "hibernate.connection.url";
+    private static final String LEGACY_USER = "hibernate.connection.username";
+    private static final String LEGACY_PASSWORD = "hibernate.connection.password";
+    private static final String LEGACY_DRIVER = "hibernate.connection.driver_class";
+
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private HikariDataSource dataSource;
+    private SlowQueryLog slowQueryLog;
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Object> entry : settings.entrySet()) {
+            if (entry.getKey().startsWith(HIKARI_PREFIX) && entry.getValue() != null) {
+                properties.setProperty(entry.getKey().substring(HIKARI_PREFIX.length()), entry.getValue().toString());
+            }
+        }
+
+        HikariConfig config = new HikariConfig(properties);
+        setIfPresent(settings, JdbcSettings.JAKARTA_JDBC_URL, LEGACY_URL, config::setJdbcUrl);
+        setIfPresent(settings, JdbcSettings.JAKARTA_JDBC_USER, LEGACY_USER, config::setUsername);
+        setIfPresent(settings, JdbcSettings.JAKARTA_JDBC_PASSWORD, LEGACY_PASSWORD, config::setPassword);
+        setIfPresent(settings, JdbcSettings.JAKARTA_JDBC_DRIVER, LEGACY_DRIVER, config::setDriverClassName);
+        config.setMetricsTrackerFactory((poolName, poolStats) -> new AcquireTracker());
+
+        dataSource = new HikariDataSource(config);
+        slowQueryLog = SlowQueryLog.fromSettings(settings).orElse(null);
+        logger.info("Connection pool {} started (min idle {}, max size {})",
+                config.getPoolName(), config.getMinimumIdle(), config.getMaximumPoolSize());
+        if (slowQueryLog != null) {
+            logger.info("Slow query log enabled: {}", slowQueryLog);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        return slowQueryLog != null ? slowQueryLog.wrap(connection) : connection;
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    public ConnectionPoolStats getStats() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return new ConnectionPoolStats(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(),
+                acquireTimeouts.sum(),
+                acquireLatency.snapshot());
+    }
+
+    /**
+     * Borrows {@code minimumIdle} connections at the same time and hands them back, so that many
+     * physical connections are established before the first request needs one.
+     *
+     * @return the number of connections borrowed
+     */
+    public int prime() throws SQLException {
+        int target = dataSource.getMinimumIdle();
+        List<Connection> borrowed = new ArrayList<>(target);
+        try {
+            while (borrowed.size() < target) {
+                borrowed.add(dataSource.getConnection());
+            }
+            return borrowed.size();
+        } finally {
+            for (Connection connection : borrowed) {
+                connection.close();
+            }
+        }
+    }
+
+    public Optional<SlowQueryLog> getSlowQueryLog() {
+        return Optional.ofNullable(slowQueryLog);
+    }
+
+    @Override
+    public void stop() {
+        if (dataSource != null && !dataSource.isClosed()) {
+            logger.info("Closing connection pool {}: {}", dataSource.getPoolName(), getStats());
+            dataSource.close();
+        }
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isAssignableFrom(PooledConnectionProvider.class)
+                || unwrapType.isAssignableFrom(HikariDataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isAssignableFrom(PooledConnectionProvider.class)) {
+            return (T) this;
+        }
+        if (unwrapType.isAssignableFrom(HikariDataSource.class)) {
+            return (T) dataSource;
+        }
+        throw new IllegalArgumentException("Cannot unwrap " + getClass().getName() + " as " + unwrapType.getName());
+    }
+
+    private static void setIfPresent(Map<String, Object> settings, String key, String legacyKey, Consumer<String> setter) {
+        Object value = settings.get(key);
+        if (value == null) {
+            value = settings.get(legacyKey);
+        }
+        if (value != null) {
+            setter.accept(value.toString());
+        }
+    }
+
+    private class AcquireTracker implements IMetricsTracker {
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireLatency.record(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            acquireTimeouts.increment();
+        }
+    }
+}
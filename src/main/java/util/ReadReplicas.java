@@ -0,0 +1,51 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration of the read-only replica SessionFactories used by {@link dao.impl.RoutingUserDao}.
+ * <p>
+ * Replica JDBC urls are given with {@code -Dapp.replicaUrls=url1,url2}; every replica is built from
+ * hibernate.cfg.xml with the {@link #settings(String, int) overrides} below, and uses the primary's
+ * credentials. Replicas have no second-level cache: their data lags the primary, and entries cached
+ * from it would never be invalidated by the primary's writes.
+ */
+public final class ReadReplicas {
+
+    public static final String URLS_PROPERTY = "app.replicaUrls";
+
+    private ReadReplicas() {
+    }
+
+    /**
+     * @return the configured replica urls, empty when reads should go to the primary only
+     */
+    public static List<String> urlsFromSystemProperties() {
+        String urls = System.getProperty(URLS_PROPERTY, "");
+        List<String> result = new ArrayList<>();
+        for (String url : Arrays.asList(urls.split(","))) {
+            if (!url.isBlank()) {
+                result.add(url.trim());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Settings applied on top of hibernate.cfg.xml for the replica with the given url.
+     */
+    public static Map<String, Object> settings(String url, int index) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("hibernate.connection.url", url);
+        settings.put("hibernate.hikari.poolName", "user-service-replica-" + index);
+        settings.put("hibernate.hikari.readOnly", "true");
+        settings.put("hibernate.hbm2ddl.auto", "none");
+        settings.put("hibernate.cache.use_second_level_cache", "false");
+        settings.put("hibernate.cache.use_query_cache", "false");
+        return settings;
+    }
+}
@@ -0,0 +1,67 @@
+package util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lets through only one in {@code rate} DEBUG/TRACE events of the configured loggers (and their
+ * children); other events are not affected. Turbo filters run before the event is created, so a
+ * dropped event costs neither message formatting nor a queue slot.
+ * <p>
+ * Level checks such as {@code isDebugEnabled()} reach the filter without a message ({@code format == null})
+ * and are let through: sampling the guard as well as the guarded call would keep only one in
+ * {@code rate * rate} events. The guarded code then runs, and its event is sampled.
+ * <pre>
+ * &lt;turboFilter class="util.SamplingTurboFilter"&gt;
+ *     &lt;loggerPrefix&gt;dao&lt;/loggerPrefix&gt;
+ *     &lt;rate&gt;100&lt;/rate&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<String> loggerPrefixes = new ArrayList<>();
+    private int rate = 100;
+
+    public void addLoggerPrefix(String loggerPrefix) {
+        loggerPrefixes.add(loggerPrefix);
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    @Override
+    public void start() {
+        if (rate <= 0) {
+            addError("Sampling rate must be positive");
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || level == null || level.isGreaterOrEqual(Level.INFO) || format == null
+                || !matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextInt(rate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean matches(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if (loggerName.equals(prefix) || loggerName.startsWith(prefix + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
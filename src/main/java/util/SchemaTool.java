@@ -0,0 +1,84 @@
+package util;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schema validation and migration as a separate step from application startup, so the
+ * application itself can boot with {@code -Dapp.fastBoot=true} (no schema inspection):
+ * <pre>
+ *     java -cp app.jar util.SchemaTool validate          # fail if the schema does not match the mapping
+ *     java -cp app.jar util.SchemaTool update            # apply missing tables, columns and sequences
+ *     java -cp app.jar util.SchemaTool script out.sql    # write the update statements for review instead
+ * </pre>
+ * Changes hbm2ddl cannot make on populated tables are in the scripts under db/.
+ */
+public final class SchemaTool {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaTool.class);
+
+    private SchemaTool() {
+    }
+
+    public static void main(String[] args) {
+        String action = args.length > 0 ? args[0] : "validate";
+        if (action.equals("script") && args.length < 2) {
+            usage();
+            System.exit(2);
+        }
+
+        StandardServiceRegistryBuilder builder = new StandardServiceRegistryBuilder()
+                .configure("hibernate.cfg.xml")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "none")
+                .applySetting(AvailableSettings.HBM2DDL_HALT_ON_ERROR, true);
+        switch (action) {
+            case "validate":
+            case "update":
+                builder.applySetting(AvailableSettings.JAKARTA_HBM2DDL_DATABASE_ACTION, action);
+                break;
+            case "script":
+                builder.applySetting(AvailableSettings.JAKARTA_HBM2DDL_DATABASE_ACTION, "none")
+                        .applySetting(AvailableSettings.JAKARTA_HBM2DDL_SCRIPTS_ACTION, "update")
+                        .applySetting(AvailableSettings.JAKARTA_HBM2DDL_SCRIPTS_CREATE_TARGET, args[1])
+                        .applySetting(AvailableSettings.HBM2DDL_DELIMITER, ";")
+                        .applySetting(AvailableSettings.FORMAT_SQL, true);
+                break;
+            default:
+                usage();
+                System.exit(2);
+        }
+
+        StandardServiceRegistry registry = builder.build();
+        try {
+            Metadata metadata = new MetadataSources(registry).buildMetadata();
+            SchemaManagementToolCoordinator.process(metadata, registry,
+                    registry.requireService(ConfigurationService.class).getSettings(), dropAction -> { });
+            switch (action) {
+                case "validate":
+                    logger.info("Schema matches the mapping");
+                    break;
+                case "update":
+                    logger.info("Schema updated");
+                    break;
+                default:
+                    logger.info("Schema update script written to {}", args[1]);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Schema {} failed: {}", action, e.getMessage(), e);
+            System.exit(1);
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: SchemaTool validate | update | script <file>");
+    }
+}
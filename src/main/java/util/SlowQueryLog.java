@@ -0,0 +1,256 @@
+package util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Logs JDBC statements that take longer than a threshold, with their bound parameters, elapsed
+ * time and the calling DAO method; optionally also the database's plan (EXPLAIN) for them.
+ * <p>
+ * {@link PooledConnectionProvider} wraps pooled connections with {@link #wrap(Connection)} when
+ * {@code hibernate.slow_query_log.threshold_ms} is set; it is unset by default. Only prepared
+ * statements are timed, by plain delegating wrappers that read the ticker before and after each
+ * {@code execute*}; bound values are turned into text only for statements over the threshold.
+ * At most {@code max_per_second} entries are written per second; the number of suppressed entries
+ * is reported with the next one written.
+ */
+public class SlowQueryLog {
+
+    public static final String THRESHOLD_SETTING = "hibernate.slow_query_log.threshold_ms";
+    public static final String EXPLAIN_SETTING = "hibernate.slow_query_log.explain";
+    public static final String MAX_PER_SECOND_SETTING = "hibernate.slow_query_log.max_per_second";
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final int DEFAULT_MAX_PER_SECOND = 10;
+    private static final int MAX_PARAMETER_LENGTH = 100;
+    private static final String CALLER_PACKAGE = "dao.";
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final int maxPerSecond;
+    private final LongSupplier ticker;
+    private final Consumer<String> output;
+
+    private final Object windowLock = new Object();
+    private long windowStart;
+    private int writtenInWindow;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private final LongAdder slowStatements = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    public SlowQueryLog(long thresholdMillis, boolean explain, int maxPerSecond) {
+        this(thresholdMillis, explain, maxPerSecond, System::nanoTime, logger::warn);
+    }
+
+    SlowQueryLog(long thresholdMillis, boolean explain, int maxPerSecond, LongSupplier ticker, Consumer<String> output) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("Slow query threshold must be positive");
+        }
+        if (maxPerSecond <= 0) {
+            throw new IllegalArgumentException("Slow query log rate must be positive");
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explain = explain;
+        this.maxPerSecond = maxPerSecond;
+        this.ticker = ticker;
+        this.output = output;
+        this.windowStart = ticker.getAsLong();
+    }
+
+    /**
+     * @return the slow query log configured in the Hibernate settings, or empty when no threshold is set
+     */
+    public static Optional<SlowQueryLog> fromSettings(Map<String, Object> settings) {
+        Object threshold = settings.get(THRESHOLD_SETTING);
+        if (threshold == null || threshold.toString().isBlank() || Long.parseLong(threshold.toString().trim()) <= 0) {
+            return Optional.empty();
+        }
+        Object explain = settings.get(EXPLAIN_SETTING);
+        Object maxPerSecond = settings.get(MAX_PER_SECOND_SETTING);
+        return Optional.of(new SlowQueryLog(
+                Long.parseLong(threshold.toString().trim()),
+                explain != null && Boolean.parseBoolean(explain.toString().trim()),
+                maxPerSecond != null ? Integer.parseInt(maxPerSecond.toString().trim()) : DEFAULT_MAX_PER_SECOND));
+    }
+
+    public Connection wrap(Connection connection) {
+        return new SlowQueryConnection(this, connection);
+    }
+
+    public long getSlowStatementCount() {
+        return slowStatements.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "SlowQueryLog{" +
+                "thresholdMs=" + getThresholdMillis() +
+                ", explain=" + explain +
+                ", maxPerSecond=" + maxPerSecond +
+                ", slowStatements=" + getSlowStatementCount() +
+                ", written=" + getWrittenCount() +
+                '}';
+    }
+
+    long startTimer() {
+        return ticker.getAsLong();
+    }
+
+    /**
+     * Called by {@link SlowQueryStatement} after every execution; {@code parameters} is null for
+     * SQL passed straight to {@code execute*} rather than prepared.
+     */
+    void executed(Connection connection, String sql, BoundParameters parameters, int batchSize,
+                  long startNanos, boolean failed) {
+        long elapsed = ticker.getAsLong() - startNanos;
+        if (elapsed >= thresholdNanos && sql != null) {
+            slowStatement(connection, sql, parameters != null ? parameters.toList() : List.of(), batchSize,
+                    elapsed, failed);
+        }
+    }
+
+    private void slowStatement(Connection connection, String sql, List<Object> parameters, int batchSize,
+                               long elapsedNanos, boolean failed) {
+        slowStatements.increment();
+        if (!acquirePermit()) {
+            suppressed.incrementAndGet();
+            return;
+        }
+
+        StringBuilder entry = new StringBuilder(256)
+                .append("Slow query: ")
+                .append(String.format(Locale.ROOT, "%.1f", elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1)))
+                .append(" ms (threshold ").append(getThresholdMillis()).append(" ms)")
+                .append(" in ").append(callingDaoMethod());
+        if (failed) {
+            entry.append(", failed");
+        }
+        if (batchSize > 0) {
+            entry.append(", batch of ").append(batchSize).append(", last parameters");
+        }
+        entry.append("\n  sql: ").append(sql)
+                .append("\n  parameters: ").append(formatParameters(parameters));
+        if (explain && !failed && batchSize == 0) {
+            entry.append("\n  plan:").append(explain(connection, sql, parameters));
+        }
+        long skipped = suppressed.getAndSet(0);
+        if (skipped > 0) {
+            entry.append("\n  (").append(skipped).append(" slow queries not logged due to rate limit)");
+        }
+        written.increment();
+        output.accept(entry.toString());
+    }
+
+    private boolean acquirePermit() {
+        long now = ticker.getAsLong();
+        synchronized (windowLock) {
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                windowStart = now;
+                writtenInWindow = 0;
+            }
+            if (writtenInWindow >= maxPerSecond) {
+                return false;
+            }
+            writtenInWindow++;
+            return true;
+        }
+    }
+
+    /**
+     * Runs EXPLAIN for the statement with the same parameters. Inside a transaction it runs under a
+     * savepoint, so a failing EXPLAIN cannot abort the caller's transaction.
+     */
+    private static String explain(Connection connection, String sql, List<Object> parameters) {
+        Savepoint savepoint = null;
+        try {
+            if (!connection.getAutoCommit()) {
+                savepoint = connection.setSavepoint();
+            }
+            StringBuilder plan = new StringBuilder();
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append("\n    ").append(rs.getString(1));
+                    }
+                }
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+            }
+            return " unavailable (" + e.getMessage() + ")";
+        }
+    }
+
+    /**
+     * The innermost public method of a DAO class on the stack; only computed for logged entries.
+     */
+    private static String callingDaoMethod() {
+        return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE).walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(CALLER_PACKAGE))
+                .filter(SlowQueryLog::isPublicMethod)
+                .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName())
+                .findFirst()
+                .orElse("unknown caller"));
+    }
+
+    private static boolean isPublicMethod(StackWalker.StackFrame frame) {
+        try {
+            Method method = frame.getDeclaringClass()
+                    .getDeclaredMethod(frame.getMethodName(), frame.getMethodType().parameterArray());
+            return Modifier.isPublic(method.getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static String formatParameters(List<Object> parameters) {
+        if (parameters.isEmpty()) {
+            return "none";
+        }
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (Object parameter : parameters) {
+            String value = parameter instanceof String ? "'" + parameter + "'" : String.valueOf(parameter);
+            joiner.add(value.length() > MAX_PARAMETER_LENGTH ? value.substring(0, MAX_PARAMETER_LENGTH) + "..." : value);
+        }
+        return joiner.toString();
+    }
+}
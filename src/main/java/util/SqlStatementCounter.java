@@ -0,0 +1,204 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts the SQL issued by the current thread between {@link #start()} and {@link #close()}.
+ * <p>
+ * The counts come from Hibernate's own hooks, configured in hibernate.cfg.xml:
+ * <ul>
+ *     <li>statements: every statement Hibernate prepares, seen by {@link CountingStatementInspector};
+ *     a JDBC batch is one statement</li>
+ *     <li>round trips: every execution and batch execution, seen by {@link InstrumentingSessionEventListener}</li>
+ *     <li>rows fetched: entities materialised from JDBC results, from Hibernate's entity load
+ *     statistic ({@link CountingStatisticsFactory}); second-level cache hits are not fetched rows</li>
+ * </ul>
+ * Counters nest: a statement counts towards every counter open on the thread. Work done on other
+ * threads (e.g. by a batching dispatcher) is not counted.
+ * <p>
+ * Besides explicit counters, every thread keeps running totals of the three primitive counts
+ * ({@link #threadTotals()}); {@link OperationMetrics} reads them before and after a call, so counting
+ * in production allocates nothing and never looks at the SQL text. Only counters started with
+ * {@code recordStatements} (test budgets) keep the text of the statements they see.
+ */
+public final class SqlStatementCounter implements AutoCloseable {
+
+    private static final ThreadLocal<ThreadTotals> totals = ThreadLocal.withInitial(ThreadTotals::new);
+    private static final int MAX_RECORDED_STATEMENTS = 50;
+
+    private final SqlStatementCounter parent;
+    private final List<String> recorded;
+    private int statements;
+    private int selects;
+    private int inserts;
+    private int updates;
+    private int deletes;
+    private int roundTrips;
+    private long rowsFetched;
+    private boolean closed;
+
+    private SqlStatementCounter(SqlStatementCounter parent, boolean recordStatements) {
+        this.parent = parent;
+        this.recorded = recordStatements ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Starts counting on the current thread; close the counter (try-with-resources) to stop.
+     */
+    public static SqlStatementCounter start() {
+        return start(false);
+    }
+
+    /**
+     * Like {@link #start()}; with {@code recordStatements} the counter also keeps the text of the first
+     * statements it sees (see {@link #getRecordedStatements()}).
+     */
+    public static SqlStatementCounter start(boolean recordStatements) {
+        ThreadTotals thread = totals.get();
+        SqlStatementCounter counter = new SqlStatementCounter(thread.open, recordStatements);
+        thread.open = counter;
+        return counter;
+    }
+
+    /**
+     * @return the running totals of the current thread; the same instance on every call from that thread
+     */
+    static ThreadTotals threadTotals() {
+        return totals.get();
+    }
+
+    static void statementPrepared(String sql) {
+        ThreadTotals thread = totals.get();
+        thread.statements++;
+        for (SqlStatementCounter counter = thread.open; counter != null; counter = counter.parent) {
+            counter.onStatement(sql);
+        }
+    }
+
+    static void roundTrip() {
+        ThreadTotals thread = totals.get();
+        thread.roundTrips++;
+        for (SqlStatementCounter counter = thread.open; counter != null; counter = counter.parent) {
+            counter.roundTrips++;
+        }
+    }
+
+    static void rowFetched() {
+        ThreadTotals thread = totals.get();
+        thread.rowsFetched++;
+        for (SqlStatementCounter counter = thread.open; counter != null; counter = counter.parent) {
+            counter.rowsFetched++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getSelects() {
+        return selects;
+    }
+
+    public int getInserts() {
+        return inserts;
+    }
+
+    public int getUpdates() {
+        return updates;
+    }
+
+    public int getDeletes() {
+        return deletes;
+    }
+
+    public int getRoundTrips() {
+        return roundTrips;
+    }
+
+    public long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    /**
+     * @return the first statements seen by this counter, in order; empty unless it was started with
+     * {@code recordStatements}
+     */
+    public List<String> getRecordedStatements() {
+        return recorded != null ? Collections.unmodifiableList(recorded) : Collections.emptyList();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ThreadTotals thread = totals.get();
+        if (thread.open != this) {
+            throw new IllegalStateException("SQL statement counters must be closed in reverse order of start()");
+        }
+        thread.open = parent;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlStatementCounter{" +
+                "statements=" + statements +
+                " (select=" + selects + ", insert=" + inserts + ", update=" + updates + ", delete=" + deletes + ")" +
+                ", roundTrips=" + roundTrips +
+                ", rowsFetched=" + rowsFetched +
+                '}';
+    }
+
+    private void onStatement(String sql) {
+        statements++;
+        if (recorded != null && recorded.size() < MAX_RECORDED_STATEMENTS) {
+            recorded.add(sql);
+        }
+        int start = 0;
+        while (start < sql.length() && !Character.isLetter(sql.charAt(start))) {
+            start++;
+        }
+        if (startsWithWord(sql, start, "select") || startsWithWord(sql, start, "with")) {
+            selects++;
+        } else if (startsWithWord(sql, start, "insert")) {
+            inserts++;
+        } else if (startsWithWord(sql, start, "update")) {
+            updates++;
+        } else if (startsWithWord(sql, start, "delete")) {
+            deletes++;
+        }
+    }
+
+    private static boolean startsWithWord(String sql, int start, String word) {
+        int end = start + word.length();
+        return sql.regionMatches(true, start, word, 0, word.length())
+                && (end == sql.length() || !Character.isLetter(sql.charAt(end)));
+    }
+
+    /**
+     * Running totals of one thread, never reset; callers take differences. Only the owning thread
+     * writes or reads them.
+     */
+    static final class ThreadTotals {
+
+        private SqlStatementCounter open;
+        private long statements;
+        private long roundTrips;
+        private long rowsFetched;
+
+        long getStatements() {
+            return statements;
+        }
+
+        long getRoundTrips() {
+            return roundTrips;
+        }
+
+        long getRowsFetched() {
+            return rowsFetched;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Collects how long each startup phase took, so slow boots can be broken down. Phases are
+ * timed with {@link #time(String, Supplier)}; {@link #ready()} closes the report and attributes
+ * the remaining JVM uptime to JVM start and class loading.
+ */
+public final class StartupReport {
+
+    private static final List<Phase> phases = new ArrayList<>();
+    private static long readyAtMillis = -1;
+
+    private StartupReport() {
+    }
+
+    public static <T> T time(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public static synchronized void record(String phase, long nanos) {
+        phases.add(new Phase(phase, TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    /**
+     * Marks the application as ready to serve; later calls keep the first time.
+     */
+    public static synchronized void ready() {
+        if (readyAtMillis < 0) {
+            readyAtMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        }
+    }
+
+    public static synchronized String render() {
+        long total = readyAtMillis >= 0 ? readyAtMillis : ManagementFactory.getRuntimeMXBean().getUptime();
+        long measured = 0;
+        StringBuilder report = new StringBuilder("Startup report (")
+                .append(readyAtMillis >= 0 ? "ready after " : "not ready yet, uptime ")
+                .append(total).append(" ms since JVM start)\n");
+        for (Phase phase : phases) {
+            measured += phase.millis;
+            report.append(String.format("  %-36s %6d ms%n", phase.name, phase.millis));
+        }
+        report.append(String.format("  %-36s %6d ms%n", "JVM start, class loading, other", Math.max(0, total - measured)));
+        return report.toString();
+    }
+
+    private static class Phase {
+
+        private final String name;
+        private final long millis;
+
+        private Phase(String name, long millis) {
+            this.name = name;
+            this.millis = millis;
+        }
+    }
+}
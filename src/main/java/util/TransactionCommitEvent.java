@@ -0,0 +1,46 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.hibernate.Transaction;
+
+/**
+ * JFR event for a transaction commit, including the flush Hibernate performs before it.
+ */
+@Name("app.TransactionCommit")
+@Label("Transaction Commit")
+@Category({"User Service", "Hibernate"})
+@Description("Flush and commit of a Hibernate transaction")
+@StackTrace(false)
+public class TransactionCommitEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Successful")
+    public boolean successful;
+
+    /**
+     * Commits the transaction, recording the time it took when the event is enabled.
+     */
+    public static void commit(Transaction transaction, String operation) {
+        TransactionCommitEvent event = new TransactionCommitEvent();
+        event.begin();
+        boolean successful = false;
+        try {
+            transaction.commit();
+            successful = true;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.successful = successful;
+                event.commit();
+            }
+        }
+    }
+}
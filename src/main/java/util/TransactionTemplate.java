@@ -0,0 +1,23 @@
+package util;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs a piece of work as one transactional unit.
+ */
+public interface TransactionTemplate {
+
+    <T> T execute(Supplier<T> work);
+
+    /**
+     * A template that simply runs the work; every DAO call manages its own transaction.
+     */
+    static TransactionTemplate none() {
+        return new TransactionTemplate() {
+            @Override
+            public <T> T execute(Supplier<T> work) {
+                return work.get();
+            }
+        };
+    }
+}
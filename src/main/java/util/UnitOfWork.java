@@ -0,0 +1,71 @@
+package util;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The Session and transaction bound to the current thread by {@link HibernateTransactionTemplate}.
+ * DAOs join it instead of opening their own Session, so a whole service operation uses one
+ * connection and one commit.
+ */
+public final class UnitOfWork {
+
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+    private final SessionFactory sessionFactory;
+    private final Session session;
+    private final List<Runnable> afterCompletion = new ArrayList<>();
+
+    private UnitOfWork(SessionFactory sessionFactory, Session session) {
+        this.sessionFactory = sessionFactory;
+        this.session = session;
+    }
+
+    public static boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * @return the Session of the active unit of work if it was opened on the given factory
+     */
+    public static Optional<Session> currentSession(SessionFactory sessionFactory) {
+        UnitOfWork unitOfWork = current.get();
+        if (unitOfWork == null || unitOfWork.sessionFactory != sessionFactory) {
+            return Optional.empty();
+        }
+        return Optional.of(unitOfWork.session);
+    }
+
+    /**
+     * Runs the action once the active unit of work has committed or rolled back,
+     * or immediately when no unit of work is active.
+     */
+    public static void afterCompletion(Runnable action) {
+        UnitOfWork unitOfWork = current.get();
+        if (unitOfWork == null) {
+            action.run();
+        } else {
+            unitOfWork.afterCompletion.add(action);
+        }
+    }
+
+    static UnitOfWork begin(SessionFactory sessionFactory, Session session) {
+        if (current.get() != null) {
+            throw new IllegalStateException("A unit of work is already active on this thread");
+        }
+        UnitOfWork unitOfWork = new UnitOfWork(sessionFactory, session);
+        current.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    void end() {
+        current.remove();
+        for (Runnable action : afterCompletion) {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- Existing databases created the "user" table from the old IDENTITY mapping, so the id column is
+-- "bigint generated by default as identity" backed by an implicit sequence that increments by 1.
+-- models.User now allocates ids from a standalone user_id_seq in blocks of 50 (pooled optimizer):
+-- drop the identity (and its implicit sequence), create the sequence with the mapping's
+-- allocationSize and move it past the existing ids, so the first block starts at max(id) + 1.
+ALTER TABLE public."user" ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS public.user_id_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE public.user_id_seq INCREMENT BY 50;
+SELECT setval('public.user_id_seq', max(id)) FROM public."user" HAVING max(id) IS NOT NULL;
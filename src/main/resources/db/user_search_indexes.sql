@@ -0,0 +1,15 @@
+-- Indexes for UserDao.search on an existing, populated "user" table. hbm2ddl would create the
+-- @Index declarations of models.User with a blocking CREATE INDEX, so build them concurrently here.
+-- Each index ends with id, the tie-breaker of the keyset pagination, so "order by x, id" is index-ordered.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_name ON public."user" (name, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_age ON public."user" (age, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_created_at ON public."user" (created_at, id);
+
+-- A plain btree only serves "name LIKE 'prefix%'" under the C collation; text_pattern_ops serves it
+-- under any collation.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_name_pattern ON public."user" (name text_pattern_ops);
+
+-- The email domain filter is a suffix match (lower(email) LIKE '%@domain'), which no btree can serve;
+-- a trigram index can.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_email_trgm ON public."user" USING gin (lower(email) gin_trgm_ops);
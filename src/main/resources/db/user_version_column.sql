@@ -0,0 +1,3 @@
+-- models.User is now versioned (@Version) for optimistic locking. hbm2ddl cannot add a NOT NULL
+-- column to a table that already has rows, so add it with a default before the application starts.
+ALTER TABLE public."user" ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
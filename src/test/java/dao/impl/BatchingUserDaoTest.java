@@ -0,0 +1,81 @@
+package dao.impl;
+
+import dao.UserDao;
+import models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class BatchingUserDaoTest {
+
+    @Test
+    @DisplayName("Параллельные запросы по id объединяются в один запрос к DAO")
+    void shouldResolveConcurrentLookupsWithOneQuery() throws Exception {
+        // Given
+        UserDao delegate = mock(UserDao.class);
+        when(delegate.findAllByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            List<User> users = new ArrayList<>();
+            for (Long id : ids) {
+                if (id % 2 == 0) {
+                    users.add(user(id));
+                }
+            }
+            return users;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+
+        try (BatchingUserDao dao = new BatchingUserDao(delegate, 100, Duration.ofMillis(200), 1)) {
+            // When
+            List<Future<Optional<User>>> results = new ArrayList<>();
+            for (long id = 1; id <= 6; id++) {
+                long userId = id;
+                results.add(executor.submit(() -> dao.findById(userId)));
+            }
+
+            // Then
+            for (int i = 0; i < results.size(); i++) {
+                long id = i + 1;
+                Optional<User> user = results.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(id % 2 == 0, user.isPresent());
+                user.ifPresent(u -> assertEquals(id, u.getId()));
+            }
+            assertEquals(1, dao.getBatchCount());
+            assertEquals(6, dao.getLookupCount());
+            verify(delegate, times(1)).findAllByIds(anyCollection());
+            verify(delegate, never()).findById(anyLong());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Пакет отправляется сразу при достижении максимального размера")
+    void shouldDispatchImmediatelyWhenBatchIsFull() {
+        UserDao delegate = mock(UserDao.class);
+        when(delegate.findAllByIds(anyCollection())).thenReturn(List.of(user(1L)));
+
+        try (BatchingUserDao dao = new BatchingUserDao(delegate, 1, Duration.ofMinutes(1), 1)) {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertTrue(dao.findById(1L).isPresent()));
+        }
+    }
+
+    private static User user(Long id) {
+        User user = new User("User " + id, "user" + id + "@example.com", 30);
+        user.setId(id);
+        return user;
+    }
+}
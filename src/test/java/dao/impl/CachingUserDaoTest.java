@@ -0,0 +1,113 @@
+package dao.impl;
+
+import dao.UserDao;
+import models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingUserDaoTest {
+
+    private UserDao delegate;
+    private AtomicLong clock;
+    private CachingUserDao cache;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(UserDao.class);
+        clock = new AtomicLong();
+        cache = new CachingUserDao(delegate, new CachingUserDao.Settings(2, Duration.ofSeconds(10)), clock::get);
+    }
+
+    @Test
+    @DisplayName("Повторное чтение по id и email обслуживается из кэша")
+    void shouldServeRepeatedReadsFromCache() {
+        // Given
+        User user = user(1L, "john@example.com");
+        when(delegate.findById(1L)).thenReturn(Optional.of(user));
+
+        // When
+        cache.findById(1L);
+        Optional<User> byId = cache.findById(1L);
+        User byEmail = cache.findByEmail("john@example.com");
+
+        // Then
+        assertEquals(user, byId.orElseThrow());
+        assertEquals(user, byEmail);
+        assertNotSame(user, byEmail);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        verify(delegate, times(1)).findById(1L);
+        verify(delegate, never()).findByEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("Изменение возвращённого объекта не портит кэш")
+    void shouldNotExposeCachedInstances() {
+        when(delegate.findById(1L)).thenReturn(Optional.of(user(1L, "john@example.com")));
+
+        cache.findById(1L).orElseThrow().setName("Changed");
+
+        assertEquals("John", cache.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    @DisplayName("Обновление и удаление инвалидируют запись и индекс email")
+    void shouldInvalidateOnUpdateAndDelete() {
+        // Given
+        User original = user(1L, "john@example.com");
+        User changed = user(1L, "john.smith@example.com");
+        when(delegate.findById(1L)).thenReturn(Optional.of(original), Optional.of(changed));
+        when(delegate.update(changed)).thenReturn(changed);
+        when(delegate.deleteById(1L)).thenReturn(1);
+        cache.findById(1L);
+
+        // When
+        cache.update(changed);
+
+        // Then
+        assertEquals("john.smith@example.com", cache.findById(1L).orElseThrow().getEmail());
+        assertNull(cache.findByEmail("john@example.com"));
+
+        cache.deleteById(1L);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Записи вытесняются по размеру и по истечении TTL")
+    void shouldEvictBySizeAndTtl() {
+        // Given
+        when(delegate.findById(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            return Optional.of(user(id, "user" + id + "@example.com"));
+        });
+
+        // When
+        cache.findById(1L);
+        cache.findById(2L);
+        cache.findById(3L);
+
+        // Then
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        cache.findById(3L);
+        assertEquals(2, cache.getEvictionCount());
+        verify(delegate, times(2)).findById(3L);
+    }
+
+    private static User user(Long id, String email) {
+        User user = new User("John", email, 25);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,171 @@
+package dao.impl;
+
+import dao.UserDao;
+import models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HedgingUserDaoTest {
+
+    private final UserDao delegate = mock(UserDao.class);
+    private final UserDao alternate = mock(UserDao.class);
+    private HedgingUserDao dao;
+
+    @AfterEach
+    void tearDown() {
+        dao.close();
+    }
+
+    @Test
+    @DisplayName("Быстрый ответ основного источника не порождает дублирующий запрос")
+    void shouldNotHedgeFastLookups() {
+        // Given
+        when(delegate.findById(1L)).thenReturn(Optional.of(user("primary")));
+        // a generous delay, so a cold first call cannot trigger a hedge
+        dao = new HedgingUserDao(delegate, alternate,
+                new HedgingUserDao.Settings(95, Duration.ofMillis(5), Duration.ofSeconds(1), 100, 4));
+
+        // When
+        Optional<User> found = dao.findById(1L);
+
+        // Then
+        assertEquals("primary", found.orElseThrow().getName());
+        assertEquals(0, dao.getHedgeCount());
+        verifyNoInteractions(alternate);
+    }
+
+    @Test
+    @DisplayName("Медленный запрос дублируется в альтернативный источник, побеждает первый ответ")
+    void shouldReturnFirstAnswerWhenHedged() {
+        // Given
+        when(delegate.findByEmail("john@example.com")).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return user("primary");
+        });
+        when(alternate.findByEmail("john@example.com")).thenReturn(user("alternate"));
+        dao = new HedgingUserDao(delegate, alternate, settings(100));
+
+        // When
+        long start = System.nanoTime();
+        User found = dao.findByEmail("john@example.com");
+
+        // Then
+        assertEquals("alternate", found.getName());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos());
+        assertEquals(1, dao.getHedgeCount());
+        assertEquals(1, dao.getHedgeWinCount());
+    }
+
+    @Test
+    @DisplayName("Сбой одной из попыток не мешает вернуть ответ другой")
+    void shouldUseOtherAttemptWhenOneFails() {
+        // Given
+        when(delegate.findById(1L)).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            throw new RuntimeException("node down");
+        });
+        when(alternate.findById(1L)).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return Optional.of(user("alternate"));
+        });
+        dao = new HedgingUserDao(delegate, alternate, settings(100));
+
+        // When / Then
+        assertEquals("alternate", dao.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    @DisplayName("Число дублирующих запросов ограничено бюджетом")
+    void shouldCapHedgesByBudget() {
+        // Given
+        when(delegate.findById(1L)).thenAnswer(invocation -> {
+            Thread.sleep(30);
+            return Optional.of(user("primary"));
+        });
+        when(alternate.findById(1L)).thenAnswer(invocation -> {
+            Thread.sleep(30);
+            return Optional.of(user("alternate"));
+        });
+        dao = new HedgingUserDao(delegate, alternate, settings(0));
+
+        // When
+        for (int i = 0; i < 12; i++) {
+            dao.findById(1L);
+        }
+
+        // Then: only the initial burst allowance of 10 hedges is available
+        assertEquals(10, dao.getHedgeCount());
+        assertEquals(2, dao.getBudgetExhaustedCount());
+    }
+
+    @Test
+    @DisplayName("Когда все рабочие потоки заняты, запрос выполняется без дублирования и учитывается")
+    void shouldCountLookupsRunUnhedgedWhenSaturated() throws Exception {
+        // Given: the only worker is busy with a slow lookup, whose hedge cannot be sent either
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.findById(2L)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return Optional.of(user("slow"));
+        });
+        when(delegate.findById(1L)).thenReturn(Optional.of(user("primary")));
+        dao = new HedgingUserDao(delegate, alternate,
+                new HedgingUserDao.Settings(95, Duration.ofMillis(5), Duration.ofMillis(5), 100, 1));
+        Thread slow = new Thread(() -> dao.findById(2L));
+        slow.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        Optional<User> found = dao.findById(1L);
+        Thread.sleep(50);
+        release.countDown();
+        slow.join(5_000);
+
+        // Then
+        assertEquals("primary", found.orElseThrow().getName());
+        assertEquals(2, dao.getSaturatedCount());
+        assertEquals(0, dao.getHedgeCount());
+        verifyNoInteractions(alternate);
+    }
+
+    @Test
+    @DisplayName("Задержка дублирования следует за недавней задержкой, а не за всей историей")
+    void shouldFollowRecentLatency() {
+        // Given
+        dao = new HedgingUserDao(delegate, alternate,
+                new HedgingUserDao.Settings(95, Duration.ZERO, Duration.ofSeconds(1), 0, 1));
+
+        // When: a slow period followed by a fast one
+        for (int i = 0; i < 1_024; i++) {
+            dao.record(TimeUnit.MILLISECONDS.toNanos(200));
+        }
+        long slowDelay = dao.getHedgeDelay().toMillis();
+        for (int i = 0; i < 1_024; i++) {
+            dao.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        // Then
+        assertTrue(slowDelay >= 175, "delay after slow period: " + slowDelay);
+        assertTrue(dao.getHedgeDelay().toMillis() <= 2, "delay after fast period: " + dao.getHedgeDelay());
+    }
+
+    private static HedgingUserDao.Settings settings(double budgetPercent) {
+        return new HedgingUserDao.Settings(95, Duration.ofMillis(5), Duration.ofMillis(5), budgetPercent, 4);
+    }
+
+    private static User user(String name) {
+        User user = new User(name, name + "@example.com", 30);
+        user.setId(1L);
+        return user;
+    }
+}
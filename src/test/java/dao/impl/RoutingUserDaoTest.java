@@ -0,0 +1,127 @@
+package dao.impl;
+
+import dao.UserDao;
+import models.User;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import util.EmbeddedH2;
+import util.ReadReplicas;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Routes between two embedded H2 databases that stand in for a primary and a replica; since nothing
+ * replicates between them, a row written to the primary is visible only where reads are routed there.
+ */
+class RoutingUserDaoTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SessionFactory primaryFactory;
+    private SessionFactory replicaFactory;
+    private UserDao replica;
+    private RoutingUserDao routing;
+
+    @BeforeEach
+    void setUp() {
+        primaryFactory = EmbeddedH2.sessionFactory("routing");
+        Map<String, Object> replicaSettings = new HashMap<>(ReadReplicas.settings("", 0));
+        replicaSettings.remove("hibernate.connection.url");
+        // the test creates the replica's schema itself
+        replicaSettings.put("hibernate.hikari.readOnly", "false");
+        replicaSettings.put("hibernate.hbm2ddl.auto", "create-drop");
+        replicaFactory = EmbeddedH2.sessionFactory("routing", replicaSettings);
+        replica = new UserDaoImpl(replicaFactory);
+        routing = new RoutingUserDao(new UserDaoImpl(primaryFactory), List.of(replica),
+                primaryFactory.getCache(), Duration.ofSeconds(5), clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicaFactory.close();
+        primaryFactory.close();
+    }
+
+    @Test
+    @DisplayName("Запись идёт в основную базу, чтение - в реплику")
+    void shouldWriteToPrimaryAndReadFromReplica() {
+        // Given
+        routing.save(new User("John", "john@example.com", 30));
+        replica.save(new User("Replica John", "john@example.com", 30));
+
+        // When
+        User found = routing.findByEmail("john@example.com");
+
+        // Then
+        assertEquals("Replica John", found.getName());
+        assertEquals(1, routing.getReplicaReadCount());
+        assertEquals(0, routing.getPrimaryReadCount());
+    }
+
+    @Test
+    @DisplayName("В режиме read-your-writes чтение после записи идёт в основную базу, пока не истечёт окно")
+    void shouldReadOwnWritesFromPrimaryWithinWindow() {
+        try (RoutingUserDao.ReadYourWrites ignored = routing.readYourWrites()) {
+            // Given
+            routing.save(new User("John", "john@example.com", 30));
+
+            // When / Then
+            assertNotNull(routing.findByEmail("john@example.com"));
+
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+            assertNull(routing.findByEmail("john@example.com"));
+        }
+    }
+
+    @Test
+    @DisplayName("Без явного согласия вызывающего запись не влияет на маршрутизацию чтения")
+    void shouldNotReadOwnWritesWithoutOptIn() {
+        routing.save(new User("John", "john@example.com", 30));
+
+        assertNull(routing.findByEmail("john@example.com"));
+    }
+
+    @Test
+    @DisplayName("Пользователь из кэша второго уровня основной базы читается без обращения к реплике")
+    void shouldReadPrimaryCachedUserFromPrimary() {
+        User saved = routing.save(new User("John", "john@example.com", 30));
+
+        Optional<User> found = routing.findById(saved.getId());
+
+        assertTrue(found.isPresent());
+        assertEquals(0, routing.getReplicaReadCount());
+    }
+
+    @Test
+    @DisplayName("Чтения распределяются по репликам по кругу, сбой реплики повторяется на основной базе")
+    void shouldBalanceReadsAndFallBackToPrimary() {
+        // Given
+        UserDao primary = mock(UserDao.class);
+        UserDao first = mock(UserDao.class);
+        UserDao second = mock(UserDao.class);
+        when(second.findByEmail("a@example.com")).thenThrow(new RuntimeException("replica down"));
+        RoutingUserDao dao = new RoutingUserDao(primary, List.of(first, second), null, Duration.ZERO, clock::get);
+
+        // When
+        dao.findByEmail("a@example.com");
+        dao.findByEmail("a@example.com");
+        dao.findByEmail("a@example.com");
+
+        // Then
+        verify(first, times(2)).findByEmail("a@example.com");
+        verify(second, times(1)).findByEmail("a@example.com");
+        verify(primary, times(1)).findByEmail("a@example.com");
+        assertEquals(1, dao.getReplicaFailureCount());
+    }
+}
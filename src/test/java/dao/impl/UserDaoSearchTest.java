@@ -0,0 +1,102 @@
+package dao.impl;
+
+import dao.UserDao;
+import dao.UserQuery;
+import models.User;
+import models.UserView;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import util.EmbeddedH2;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDaoSearchTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private SessionFactory sessionFactory;
+    private UserDao userDao;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = EmbeddedH2.sessionFactory("search");
+        userDao = new UserDaoImpl(sessionFactory);
+
+        // Given: 40 users, every 4th of them without an age; ages repeat so the id tie-breaker matters
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            User user = new User((i % 2 == 0 ? "Anna " : "Boris ") + i,
+                    "user" + i + (i % 3 == 0 ? "@Corp.example" : "@mail.example"), i % 4 == 0 ? null : 20 + i % 5);
+            user.setCreatedAt(START.plusDays(i));
+            users.add(user);
+        }
+        userDao.createUsers(users, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    @DisplayName("Фильтры по префиксу имени, возрасту, дате создания и домену почты сочетаются")
+    void shouldCombineFilters() {
+        // When
+        UserQuery query = UserQuery.all()
+                .namePrefix("Anna")
+                .ageBetween(21, 23)
+                .createdBetween(START.plusDays(5), START.plusDays(35))
+                .emailDomain("@corp.EXAMPLE")
+                .limit(100);
+        List<UserView> found = userDao.search(query);
+
+        // Then: even i in [5, 35) with i % 3 == 0 is 6, 12, 18, 24, 30; 12 and 24 have no age, 30 is 20
+        assertEquals(List.of("user6@Corp.example", "user18@Corp.example"), emails(found));
+        assertEquals(found.size(), userDao.count(query));
+    }
+
+    @Test
+    @DisplayName("Постраничный обход по ключу даёт тот же порядок, что и одна большая страница")
+    void shouldPageByKeyset() {
+        UserQuery query = UserQuery.all().sortBy(UserQuery.Sort.AGE, true).limit(7);
+
+        List<UserView> paged = new ArrayList<>();
+        List<UserView> page = userDao.search(query);
+        while (!page.isEmpty()) {
+            paged.addAll(page);
+            page = userDao.search(query.after(page.get(page.size() - 1)));
+        }
+
+        List<UserView> all = userDao.search(query.limit(UserQuery.MAX_LIMIT));
+        assertEquals(30, all.size());
+        assertEquals(all, paged);
+        for (int i = 1; i < all.size(); i++) {
+            UserView previous = all.get(i - 1);
+            UserView current = all.get(i);
+            assertTrue(previous.getAge() > current.getAge()
+                    || previous.getAge().equals(current.getAge()) && previous.getId() > current.getId());
+        }
+        assertEquals(30, userDao.count(query));
+    }
+
+    @Test
+    @DisplayName("Символы шаблона LIKE в префиксе имени ищутся буквально")
+    void shouldEscapeLikeWildcards() {
+        userDao.save(new User("100% real", "real@example.com", 30));
+
+        assertEquals(1, userDao.search(UserQuery.all().namePrefix("100%")).size());
+        assertEquals(0, userDao.search(UserQuery.all().namePrefix("_nna")).size());
+    }
+
+    private static List<String> emails(List<UserView> views) {
+        return views.stream().map(UserView::getEmail).collect(Collectors.toList());
+    }
+}
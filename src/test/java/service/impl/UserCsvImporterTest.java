@@ -0,0 +1,107 @@
+package service.impl;
+
+import dao.BatchResult;
+import dao.UserDao;
+import models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserCsvImporterTest {
+
+    @TempDir
+    Path directory;
+
+    private final UserDao userDao = mock(UserDao.class);
+    private final List<User> inserted = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    @DisplayName("Импорт разбирает CSV, отклоняет некорректные строки и вставляет остальные пакетами")
+    void shouldImportValidRowsInBatches() throws IOException {
+        // Given
+        acceptAll();
+        Path file = csv("email,name,age\n"
+                + "john@example.com,John,30\n"
+                + "\"smith@example.com\",\"Smith, Jane\",\n"
+                + ",Nameless,20\n"
+                + "bad-age@example.com,Bad Age,abc\n"
+                + "\n"
+                + "quote@example.com,\"The \"\"Quoted\"\" One\",41\n");
+
+        // When
+        UserCsvImporter.Report report = new UserCsvImporter(userDao, new UserCsvImporter.Settings(2, 2, Duration.ofSeconds(1)))
+                .importFile(file);
+
+        // Then
+        assertEquals(5, report.getRowsRead());
+        assertEquals(3, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertTrue(report.getRejectionSamples().contains("line 4: User email cannot be empty"), report.getRejectionSamples().toString());
+        assertTrue(report.getRejectionSamples().contains("line 5: Invalid age: abc"), report.getRejectionSamples().toString());
+        assertTrue(inserted.stream().anyMatch(u -> u.getName().equals("Smith, Jane") && u.getAge() == null));
+        assertTrue(inserted.stream().anyMatch(u -> u.getName().equals("The \"Quoted\" One") && u.getAge() == 41));
+        verify(userDao, times(2)).importUsers(anyList(), eq(2));
+    }
+
+    @Test
+    @DisplayName("Отказы DAO (например, дубликаты email) попадают в отчёт с номером строки")
+    void shouldReportDaoFailuresWithLineNumbers() throws IOException {
+        // Given
+        when(userDao.importUsers(anyList(), anyInt())).thenAnswer(invocation -> {
+            BatchResult<User> result = new BatchResult<>();
+            for (User user : invocation.<List<User>>getArgument(0)) {
+                result.addFailure(user, "User with email " + user.getEmail() + " already exists");
+            }
+            return result;
+        });
+        Path file = csv("name,email\nJohn,john@example.com\n");
+
+        // When
+        UserCsvImporter.Report report = new UserCsvImporter(userDao, UserCsvImporter.Settings.defaults()).importFile(file);
+
+        // Then
+        assertEquals(0, report.getImported());
+        assertEquals(List.of("line 2: User with email john@example.com already exists"), report.getRejectionSamples());
+    }
+
+    @Test
+    @DisplayName("Файл без колонок name и email отклоняется целиком")
+    void shouldRejectFileWithoutRequiredColumns() throws IOException {
+        Path file = csv("first,second\na,b\n");
+
+        UserCsvImporter importer = new UserCsvImporter(userDao, UserCsvImporter.Settings.defaults());
+
+        assertThrows(IllegalArgumentException.class, () -> importer.importFile(file));
+        verifyNoInteractions(userDao);
+    }
+
+    private void acceptAll() {
+        when(userDao.importUsers(anyList(), anyInt())).thenAnswer(invocation -> {
+            BatchResult<User> result = new BatchResult<>();
+            for (User user : invocation.<List<User>>getArgument(0)) {
+                inserted.add(user);
+                result.addSaved(user);
+            }
+            return result;
+        });
+    }
+
+    private Path csv(String content) throws IOException {
+        Path file = directory.resolve("users.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,80 @@
+package service.impl;
+
+import models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import service.ExportFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserExportWriterTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    @DisplayName("CSV: заголовок, экранирование кавычек и запятых, пустой возраст")
+    void shouldWriteCsvWithQuoting() {
+        // Given
+        UserExportWriter writer = new UserExportWriter(Channels.newChannel(out), ExportFormat.CSV);
+
+        // When
+        writer.write(user(1L, "John", "john@example.com", 30));
+        writer.write(user(2L, "Smith, \"Jane\"", "jane@example.com", null));
+        writer.finish();
+
+        // Then
+        assertEquals("id,name,email,age,created_at,version\n"
+                + "1,John,john@example.com,30,2024-05-01T10:15:30,0\n"
+                + "2,\"Smith, \"\"Jane\"\"\",jane@example.com,,2024-05-01T10:15:30,0\n", output());
+        assertEquals(2, writer.getRows());
+    }
+
+    @Test
+    @DisplayName("JSON Lines: один объект на строку с экранированием спецсимволов")
+    void shouldWriteJsonLinesWithEscaping() {
+        UserExportWriter writer = new UserExportWriter(Channels.newChannel(out), ExportFormat.JSON_LINES);
+
+        writer.write(user(1L, "Quote \" back\\slash\ttab\u0001", "q@example.com", null));
+        writer.finish();
+
+        assertEquals("{\"id\":1,\"name\":\"Quote \\\" back\\\\slash\\ttab\\u0001\",\"email\":\"q@example.com\","
+                + "\"age\":null,\"createdAt\":\"2024-05-01T10:15:30\",\"version\":0}\n", output());
+    }
+
+    @Test
+    @DisplayName("Строки длиннее буфера и многобайтовые символы пишутся без потерь")
+    void shouldFlushWhenBufferFills() {
+        // Given: a 16-byte buffer overflows in the middle of rows and of multi-byte characters
+        UserExportWriter writer = new UserExportWriter(Channels.newChannel(out), ExportFormat.CSV, 16);
+        StringBuilder expected = new StringBuilder("id,name,email,age,created_at,version\n");
+
+        // When
+        for (long i = 1; i <= 100; i++) {
+            writer.write(user(i, "Пользователь " + i, "user" + i + "@example.com", 20));
+            expected.append(i).append(",Пользователь ").append(i).append(",user").append(i)
+                    .append("@example.com,20,2024-05-01T10:15:30,0\n");
+        }
+        writer.finish();
+
+        // Then
+        assertEquals(expected.toString(), output());
+        assertEquals(out.size(), writer.getBytesWritten());
+    }
+
+    private String output() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static User user(Long id, String name, String email, Integer age) {
+        User user = new User(name, email, age);
+        user.setId(id);
+        user.setVersion(0L);
+        user.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 15, 30));
+        return user;
+    }
+}
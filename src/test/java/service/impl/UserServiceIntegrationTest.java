@@ -1,16 +1,21 @@
 package service.impl;
 
+import dao.BatchResult;
 import dao.UserDao;
+import dao.UserQuery;
 import dao.impl.UserDaoImpl;
 import models.User;
+import models.UserView;
 import org.junit.jupiter.api.*;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.sql.*;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,7 +42,8 @@ class UserServiceIntegrationTest {
                 name VARCHAR(255) NOT NULL,
                 email VARCHAR(255) UNIQUE NOT NULL,
                 age INTEGER,
-                created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                version BIGINT NOT NULL DEFAULT 0
             )
         """;
 
@@ -156,6 +162,85 @@ class UserServiceIntegrationTest {
             return user;
         }
 
+        @Override
+        public Optional<User> insertIfEmailAbsent(User user) {
+            String sql = "INSERT INTO \"user\" (name, email, age, created_at) VALUES (?, ?, ?, ?) " +
+                    "ON CONFLICT (email) DO NOTHING RETURNING id, created_at";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, user.getName());
+                stmt.setString(2, user.getEmail());
+                stmt.setInt(3, user.getAge());
+                stmt.setTimestamp(4, Timestamp.valueOf(user.getCreatedAt()));
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return Optional.empty();
+                    }
+                    user.setId(rs.getLong("id"));
+                    user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Ошибка при создании пользователя", e);
+            }
+
+            return Optional.of(user);
+        }
+
+        @Override
+        public User upsertByEmail(User user) {
+            String sql = "INSERT INTO \"user\" (name, email, age, created_at) VALUES (?, ?, ?, ?) " +
+                    "ON CONFLICT (email) DO UPDATE SET name = EXCLUDED.name, age = EXCLUDED.age " +
+                    "RETURNING id, created_at";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, user.getName());
+                stmt.setString(2, user.getEmail());
+                stmt.setInt(3, user.getAge());
+                stmt.setTimestamp(4, Timestamp.valueOf(user.getCreatedAt()));
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        user.setId(rs.getLong("id"));
+                        user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Ошибка при сохранении пользователя", e);
+            }
+
+            return user;
+        }
+
+        @Override
+        public Optional<User> updateFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+            String sql = "UPDATE \"user\" SET name = COALESCE(?, name), email = COALESCE(?, email), " +
+                    "age = COALESCE(?, age), version = version + 1 " +
+                    "WHERE id = ? AND (CAST(? AS BIGINT) IS NULL OR version = ?) RETURNING *";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, name);
+                stmt.setString(2, email);
+                stmt.setObject(3, age, Types.INTEGER);
+                stmt.setLong(4, id);
+                stmt.setObject(5, expectedVersion, Types.BIGINT);
+                stmt.setObject(6, expectedVersion, Types.BIGINT);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return Optional.of(mapResultSetToUser(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Ошибка при обновлении пользователя", e);
+            }
+
+            if (expectedVersion != null && findById(id).isPresent()) {
+                throw new jakarta.persistence.OptimisticLockException("Версия пользователя " + id + " изменилась");
+            }
+            return Optional.empty();
+        }
+
         @Override
         public Optional<User> findById(Long id) {
             String sql = "SELECT * FROM \"user\" WHERE id = ?";
@@ -246,19 +331,172 @@ class UserServiceIntegrationTest {
         }
 
         @Override
-        public boolean deleteById(Long id) {
+        public int deleteById(Long id) {
             String sql = "DELETE FROM \"user\" WHERE id = ?";
 
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
                 stmt.setLong(1, id);
 
-                int rowsDeleted = stmt.executeUpdate();
-                return rowsDeleted > 0;
+                return stmt.executeUpdate();
             } catch (SQLException e) {
                 throw new RuntimeException("Ошибка при удалении пользователя", e);
             }
         }
 
+        @Override
+        public BatchResult<User> createUsers(Collection<User> users, int batchSize) {
+            BatchResult<User> result = new BatchResult<>();
+            for (User user : users) {
+                try {
+                    result.addSaved(save(user));
+                } catch (RuntimeException e) {
+                    result.addFailure(user, e.getMessage());
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public BatchResult<User> importUsers(List<User> users, int batchSize) {
+            return createUsers(users, batchSize);
+        }
+
+        @Override
+        public List<User> findAllByIds(Collection<Long> ids) {
+            List<User> users = new java.util.ArrayList<>();
+            for (Long id : ids) {
+                findById(id).ifPresent(users::add);
+            }
+            return users;
+        }
+
+        @Override
+        public List<User> findAllByEmails(Collection<String> emails) {
+            List<User> users = new java.util.ArrayList<>();
+            for (String email : emails) {
+                User user = findByEmail(email);
+                if (user != null) {
+                    users.add(user);
+                }
+            }
+            return users;
+        }
+
+        @Override
+        public List<User> findPage(Long afterId, int limit) {
+            List<User> users = new java.util.ArrayList<>();
+            String sql = "SELECT * FROM \"user\" WHERE id > ? ORDER BY id LIMIT ?";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setLong(1, afterId == null ? 0 : afterId);
+                stmt.setInt(2, limit);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        users.add(mapResultSetToUser(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Ошибка при получении страницы пользователей", e);
+            }
+
+            return users;
+        }
+
+        @Override
+        public List<User> findRecent(int limit) {
+            List<User> users = new java.util.ArrayList<>();
+            String sql = "SELECT * FROM \"user\" ORDER BY created_at DESC, id DESC LIMIT ?";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, limit);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        users.add(mapResultSetToUser(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Ошибка при получении последних пользователей", e);
+            }
+
+            return users;
+        }
+
+        @Override
+        public Stream<User> streamAll(int fetchSize) {
+            return findAll().stream();
+        }
+
+        @Override
+        public Optional<UserView> findViewById(Long id) {
+            return findById(id).map(UserView::of);
+        }
+
+        @Override
+        public List<UserView> findViewPage(Long afterId, int limit) {
+            return findPage(afterId, limit).stream().map(UserView::of).collect(java.util.stream.Collectors.toList());
+        }
+
+        @Override
+        public List<UserView> findRecentViews(int limit) {
+            return findRecent(limit).stream().map(UserView::of).collect(java.util.stream.Collectors.toList());
+        }
+
+        @Override
+        public List<UserView> search(UserQuery query) {
+            java.util.Comparator<User> order = query.getSort() == UserQuery.Sort.ID
+                    ? java.util.Comparator.comparing(User::getId)
+                    : java.util.Comparator.<User, Comparable<Object>>comparing(user -> sortValue(user, query.getSort()))
+                            .thenComparing(User::getId);
+            return findAll().stream()
+                    .filter(user -> matches(user, query))
+                    .filter(user -> query.getSort() != UserQuery.Sort.AGE || user.getAge() != null)
+                    .sorted(query.isDescending() ? order.reversed() : order)
+                    .filter(user -> query.getAfterId() == null || isAfter(user, query))
+                    .limit(query.getLimit())
+                    .map(UserView::of)
+                    .collect(java.util.stream.Collectors.toList());
+        }
+
+        @Override
+        public long count(UserQuery query) {
+            return findAll().stream().filter(user -> matches(user, query)).count();
+        }
+
+        private boolean matches(User user, UserQuery query) {
+            return (query.getNamePrefix() == null || user.getName().startsWith(query.getNamePrefix()))
+                    && (query.getMinAge() == null || user.getAge() != null && user.getAge() >= query.getMinAge())
+                    && (query.getMaxAge() == null || user.getAge() != null && user.getAge() <= query.getMaxAge())
+                    && (query.getCreatedFrom() == null || !user.getCreatedAt().isBefore(query.getCreatedFrom()))
+                    && (query.getCreatedBefore() == null || user.getCreatedAt().isBefore(query.getCreatedBefore()))
+                    && (query.getEmailDomain() == null
+                    || user.getEmail().toLowerCase(java.util.Locale.ROOT).endsWith("@" + query.getEmailDomain()));
+        }
+
+        private boolean isAfter(User user, UserQuery query) {
+            int compared = query.getSort() == UserQuery.Sort.ID ? 0
+                    : sortValue(user, query.getSort()).compareTo(query.getAfterValue());
+            if (compared == 0) {
+                compared = user.getId().compareTo(query.getAfterId());
+            }
+            return query.isDescending() ? compared < 0 : compared > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Comparable<Object> sortValue(User user, UserQuery.Sort sort) {
+            switch (sort) {
+                case NAME:
+                    return (Comparable<Object>) (Comparable<?>) user.getName();
+                case AGE:
+                    return (Comparable<Object>) (Comparable<?>) user.getAge();
+                case CREATED_AT:
+                    return (Comparable<Object>) (Comparable<?>) user.getCreatedAt();
+                default:
+                    return (Comparable<Object>) (Comparable<?>) user.getId();
+            }
+        }
+
         private User mapResultSetToUser(ResultSet rs) throws SQLException {
             User user = new User();
             user.setId(rs.getLong("id"));
@@ -266,6 +504,7 @@ class UserServiceIntegrationTest {
             user.setEmail(rs.getString("email"));
             user.setAge(rs.getInt("age"));
             user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+            user.setVersion(rs.getLong("version"));
             return user;
         }
     }
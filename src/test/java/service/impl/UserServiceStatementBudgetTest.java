@@ -0,0 +1,134 @@
+package service.impl;
+
+import dao.BatchResult;
+import dao.impl.UserDaoImpl;
+import models.User;
+import models.UserView;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import util.EmbeddedH2;
+import util.HibernateTransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static util.StatementBudget.statements;
+
+/**
+ * Guards the number of SQL statements and round trips per UserService call, against an in-memory
+ * H2 database configured from the application's hibernate.cfg.xml.
+ */
+class UserServiceStatementBudgetTest {
+
+    private SessionFactory sessionFactory;
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = EmbeddedH2.sessionFactory("budget");
+        userService = new UserServiceImpl(new UserDaoImpl(sessionFactory), null,
+                new HibernateTransactionTemplate(sessionFactory));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    @DisplayName("Создание пользователя: одна вставка без предварительного чтения")
+    void createUserShouldInsertWithoutReadingFirst() {
+        User user = statements(2).call(() -> userService.createUser("John", "john@example.com", 30));
+
+        assertNotNull(user.getId());
+    }
+
+    @Test
+    @DisplayName("Обновление и удаление укладываются в один-два оператора")
+    void updateAndDeleteShouldStayWithinBudget() {
+        // Given
+        User user = userService.createUser("John", "john@example.com", 30);
+
+        // When / Then
+        statements(1).roundTrips(1).call(() -> userService.updateUser(user.getId(), "Johnny", null, 31));
+        statements(1).roundTrips(1).call(() -> userService.updateUser(user.getId(), null, "johnny@example.com", null));
+        assertTrue(statements(1).roundTrips(1).call(() -> userService.deleteUser(user.getId())));
+    }
+
+    @Test
+    @DisplayName("Обновление на занятый email: один оператор и ошибка о занятом email")
+    void updateToTakenEmailShouldFailOnConstraint() {
+        // Given
+        User john = userService.createUser("John", "john@example.com", 30);
+        userService.createUser("Jane", "jane@example.com", 28);
+
+        // When
+        IllegalArgumentException exception = statements(1).call(() -> assertThrows(IllegalArgumentException.class,
+                () -> userService.updateUser(john.getId(), null, "jane@example.com", null)));
+
+        // Then
+        assertEquals("User with email jane@example.com already exists", exception.getMessage());
+        assertEquals("john@example.com", userService.getUserById(john.getId()).orElseThrow().getEmail());
+    }
+
+    @Test
+    @DisplayName("Пакетное чтение по id выполняется одним запросом, без N+1")
+    void batchLookupShouldNotIssueOneQueryPerId() {
+        // Given
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(new User("User " + i, "user" + i + "@example.com", 20));
+        }
+        BatchResult<User> saved = userService.createUsers(users);
+        List<Long> ids = saved.getSaved().stream().map(User::getId).collect(Collectors.toList());
+        sessionFactory.getCache().evictAllRegions();
+
+        // When
+        List<User> found = statements(1).roundTrips(1).rowsFetched(100).call(() -> userService.getUsersByIds(ids));
+
+        // Then
+        assertEquals(100, found.size());
+    }
+
+    @Test
+    @DisplayName("Проекции для списков читаются одним запросом и совпадают с сущностями")
+    void viewListingsShouldUseOneQuery() {
+        // Given
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            users.add(new User("User " + i, "user" + i + "@example.com", i % 2 == 0 ? 20 + i : null));
+        }
+        List<User> saved = userService.createUsers(users).getSaved();
+
+        // When
+        List<UserView> page = statements(1).roundTrips(1).rowsFetched(10)
+                .call(() -> userService.getUserViewsPage(saved.get(9).getId(), 10));
+        List<UserView> recent = statements(1).roundTrips(1).call(() -> userService.getRecentUserViews(5));
+        UserView view = statements(1).call(() -> userService.getUserView(saved.get(0).getId())).orElseThrow();
+
+        // Then
+        assertEquals(saved.subList(10, 20).stream().map(User::getEmail).collect(Collectors.toList()),
+                page.stream().map(UserView::getEmail).collect(Collectors.toList()));
+        assertEquals(5, recent.size());
+        assertEquals(saved.get(0).getEmail(), view.getEmail());
+        assertEquals(saved.get(0).getAge(), view.getAge());
+        assertTrue(userService.getUserView(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Превышение бюджета операторов проваливает тест")
+    void shouldFailWhenBudgetIsExceeded() {
+        userService.createUser("John", "john@example.com", 30);
+
+        AssertionFailedError error = assertThrows(AssertionFailedError.class,
+                () -> statements(0).call(() -> userService.getAllUsers()));
+
+        assertTrue(error.getMessage().contains("SQL budget exceeded"));
+    }
+}
@@ -1,7 +1,11 @@
 package service.impl;
 
+import dao.BatchResult;
 import dao.UserDao;
+import jakarta.persistence.OptimisticLockException;
 import models.User;
+import models.UserView;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,8 +13,14 @@ import org.junit.jupiter.api.DisplayName;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import util.TransactionTemplate;
 
+import java.sql.SQLException;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -48,8 +58,7 @@ class UserServiceUnitTest {
         User savedUser = new User(name, email, age);
         savedUser.setId(1L);
 
-        when(userDao.findByEmail(email)).thenReturn(null);
-        when(userDao.save(any(User.class))).thenReturn(savedUser);
+        when(userDao.insertIfEmailAbsent(any(User.class))).thenReturn(Optional.of(savedUser));
 
         // When
         User result = userService.createUser(name, email, age);
@@ -61,8 +70,8 @@ class UserServiceUnitTest {
         assertEquals("john@example.com", result.getEmail());
         assertEquals(25, result.getAge());
 
-        verify(userDao).findByEmail(email);
-        verify(userDao).save(any(User.class));
+        verify(userDao).insertIfEmailAbsent(any(User.class));
+        verify(userDao, never()).findByEmail(email);
     }
 
     @Test
@@ -74,10 +83,7 @@ class UserServiceUnitTest {
         String email = "john@example.com";
         Integer age = 25;
 
-        User existingUser = new User("Jane Doe", email, 30);
-        existingUser.setId(1L);
-
-        when(userDao.findByEmail(email)).thenReturn(existingUser);
+        when(userDao.insertIfEmailAbsent(any(User.class))).thenReturn(Optional.empty());
 
         // When & Then
         IllegalArgumentException exception = assertThrows(
@@ -85,12 +91,31 @@ class UserServiceUnitTest {
                 () -> userService.createUser(name, email, age)
         );
 
-        assertEquals("Пользователь с email " + email + " уже существует", exception.getMessage());
-        verify(userDao).findByEmail(email);
+        assertEquals("User with email " + email + " already exists", exception.getMessage());
+        verify(userDao).insertIfEmailAbsent(any(User.class));
         verify(userDao, never()).save(any(User.class));
     }
 
 
+    @Test
+    @DisplayName("Upsert передаёт пользователя в DAO одним вызовом")
+    void shouldUpsertUserByEmail() {
+        // Given
+        User storedUser = new User("John Smith", "john@example.com", 26);
+        storedUser.setId(1L);
+
+        when(userDao.upsertByEmail(any(User.class))).thenReturn(storedUser);
+
+        // When
+        User result = userService.upsertUser("John Smith", "john@example.com", 26);
+
+        // Then
+        assertSame(storedUser, result);
+        verify(userDao).upsertByEmail(any(User.class));
+        verify(userDao, never()).findByEmail(anyString());
+        verify(userDao, never()).save(any(User.class));
+    }
+
     @Test
     @DisplayName("Ошибка при создании пользователя с некорректными данными")
     void shouldThrowExceptionWhenInvalidData() {
@@ -113,15 +138,12 @@ class UserServiceUnitTest {
         // Given
         System.out.println("Test started");
         Long userId = 123L;
-        User existingUser = new User("John Doe", "john@example.com", 25);
-        existingUser.setId(userId);
-
-        when(userDao.findById(userId)).thenReturn(Optional.of(existingUser));
-        when(userDao.findByEmail("john.smith@example.com")).thenReturn(null);
+        User updatedUser = new User("John Smith", "john.smith@example.com", 26);
+        updatedUser.setId(userId);
+        updatedUser.setVersion(1L);
 
-        when(userDao.update(any(User.class))).thenAnswer(invocation -> {
-            return invocation.<User>getArgument(0);
-        });
+        when(userDao.updateFields(userId, "John Smith", "john.smith@example.com", 26, null))
+                .thenReturn(Optional.of(updatedUser));
 
         // When
         User result = userService.updateUser(userId, "John Smith", "john.smith@example.com", 26);
@@ -131,9 +153,149 @@ class UserServiceUnitTest {
         assertEquals("John Smith", result.getName());
         assertEquals("john.smith@example.com", result.getEmail());
         assertEquals(26, result.getAge());
+        assertEquals(1L, result.getVersion());
+
+        verify(userDao).updateFields(userId, "John Smith", "john.smith@example.com", 26, null);
+        verify(userDao, never()).findByEmail(anyString());
+        verify(userDao, never()).findById(userId);
+        verify(userDao, never()).update(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Обновление с устаревшей версией передаёт ошибку оптимистичной блокировки")
+    void shouldFailUpdateWithStaleVersion() {
+        // Given
+        when(userDao.updateFields(1L, null, null, 30, 3L))
+                .thenThrow(new OptimisticLockException("User 1 was modified concurrently"));
+
+        // When & Then
+        assertThrows(OptimisticLockException.class, () -> userService.updateUser(1L, null, null, 30, 3L));
+    }
+
+    @Test
+    @DisplayName("Нарушение уникальности email при обновлении сообщается как занятый email")
+    void shouldReportDuplicateEmailFromConstraintOnUpdate() {
+        // Given
+        SQLException duplicate = new SQLException("duplicate key value violates unique constraint", "23505");
+        when(userDao.updateFields(1L, null, "taken@example.com", null, null))
+                .thenThrow(new RuntimeException("Error updating user", new ConstraintViolationException(
+                        "could not execute statement", duplicate, "update",
+                        ConstraintViolationException.ConstraintKind.UNIQUE, "user_email_key")));
+
+        // When
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> userService.updateUser(1L, null, "taken@example.com", null));
+
+        // Then
+        assertEquals("User with email taken@example.com already exists", exception.getMessage());
+        verify(userDao, never()).findByEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("Обновление без изменений возвращает текущего пользователя без UPDATE")
+    void shouldReturnCurrentUserWhenNothingChanges() {
+        // Given
+        User current = new User("John Doe", "john@example.com", 25);
+        current.setId(1L);
+        current.setVersion(4L);
+        when(userDao.findById(1L)).thenReturn(Optional.of(current));
 
-        verify(userDao).findById(userId);
-        verify(userDao).findByEmail("john.smith@example.com");
-        verify(userDao).update(any(User.class));
+        // When & Then
+        assertSame(current, userService.updateUser(1L, " ", null, null));
+        assertSame(current, userService.updateUser(1L, null, "", null, 4L));
+        assertThrows(OptimisticLockException.class, () -> userService.updateUser(1L, null, null, null, 3L));
+        verify(userDao, never()).updateFields(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Пакетное создание пропускает некорректных пользователей и передаёт остальных в DAO")
+    void shouldCreateUsersInBatchSkippingInvalidOnes() {
+        // Given
+        User valid1 = new User("John Doe", "john@example.com", 25);
+        User invalid = new User("", "empty-name@example.com", 30);
+        User valid2 = new User("Jane Doe", "jane@example.com", 28);
+
+        BatchResult<User> daoResult = new BatchResult<>();
+        daoResult.addSaved(valid1);
+        daoResult.addSaved(valid2);
+        when(userDao.createUsers(List.of(valid1, valid2), 100)).thenReturn(daoResult);
+
+        // When
+        BatchResult<User> result = userService.createUsers(List.of(valid1, invalid, valid2), 100);
+
+        // Then
+        assertEquals(List.of(valid1, valid2), result.getSaved());
+        assertEquals(1, result.getFailures().size());
+        assertSame(invalid, result.getFailures().get(0).getItem());
+        assertEquals("User name cannot be empty", result.getFailures().get(0).getReason());
+        verify(userDao).createUsers(List.of(valid1, valid2), 100);
+    }
+
+    @Test
+    @DisplayName("Обновление выполняется в одной единице работы")
+    void shouldRunUpdateUserInsideSingleUnitOfWork() {
+        // Given
+        AtomicInteger depth = new AtomicInteger();
+        AtomicInteger units = new AtomicInteger();
+        TransactionTemplate transactions = new TransactionTemplate() {
+            @Override
+            public <T> T execute(Supplier<T> work) {
+                units.incrementAndGet();
+                depth.incrementAndGet();
+                try {
+                    return work.get();
+                } finally {
+                    depth.decrementAndGet();
+                }
+            }
+        };
+        UserServiceImpl service = new UserServiceImpl(userDao, null, transactions);
+
+        User updatedUser = new User("John Doe", "johnny@example.com", 25);
+        updatedUser.setId(1L);
+
+        when(userDao.updateFields(1L, null, "johnny@example.com", null, null)).thenAnswer(invocation -> {
+            assertEquals(1, depth.get());
+            return Optional.of(updatedUser);
+        });
+
+        // When
+        service.updateUser(1L, null, "johnny@example.com", null);
+
+        // Then
+        assertEquals(1, units.get());
+        verify(userDao).updateFields(1L, null, "johnny@example.com", null, null);
+    }
+
+    @Test
+    @DisplayName("Создание, обновление и удаление поддерживают индекс нечёткого поиска")
+    void shouldKeepSearchIndexUpToDate() {
+        // Given
+        UserServiceImpl service = new UserServiceImpl(userDao, null, null, new UserTrigramIndex());
+        User created = new User("Johnathan Smith", "john@example.com", 25);
+        created.setId(1L);
+        User renamed = new User("Jonathan Smyth", "jon@example.com", 25);
+        renamed.setId(1L);
+        when(userDao.insertIfEmailAbsent(any(User.class))).thenReturn(Optional.of(created));
+        when(userDao.updateFields(1L, "Jonathan Smyth", "jon@example.com", null, null)).thenReturn(Optional.of(renamed));
+        when(userDao.findAllByIds(List.of(1L))).thenReturn(List.of(renamed));
+        when(userDao.deleteById(1L)).thenReturn(1);
+
+        // When / Then
+        service.createUser("Johnathan Smith", "john@example.com", 25);
+        assertEquals(1, service.getSearchIndex().orElseThrow().search("johnatan", 10).size());
+
+        service.updateUser(1L, "Jonathan Smyth", "jon@example.com", null);
+        assertEquals(List.of("Jonathan Smyth"), service.fuzzySearchUsers("smyth", 10).stream()
+                .map(UserView::getName).collect(Collectors.toList()));
+
+        assertTrue(service.deleteUser(1L));
+        assertTrue(service.fuzzySearchUsers("smyth", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Нечёткий поиск без индекса сообщает, что он не включён")
+    void shouldRejectFuzzySearchWithoutIndex() {
+        assertThrows(IllegalStateException.class, () -> userService.fuzzySearchUsers("john", 10));
     }
 }
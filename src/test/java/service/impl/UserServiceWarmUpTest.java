@@ -0,0 +1,102 @@
+package service.impl;
+
+import dao.UserDao;
+import models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import service.UserService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserServiceWarmUpTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final UserDao userDao = mock(UserDao.class);
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("Прогрев открывает соединения, выполняет нагрузку и загружает последних пользователей")
+    void shouldRunAllSteps() {
+        // Given
+        when(userDao.findRecent(2)).thenReturn(List.of(new User("A", "a@example.com", 20), new User("B", "b@example.com", 30)));
+        UserServiceWarmUp warmUp = new UserServiceWarmUp(userService, userDao,
+                new UserServiceWarmUp.Settings(100, 2, Duration.ofSeconds(10)), () -> 5, clock::get);
+
+        // When
+        UserServiceWarmUp.Result result = warmUp.run();
+
+        // Then
+        assertEquals(5, result.getConnections());
+        assertEquals(100, result.getIterations());
+        assertEquals(2, result.getPreloadedUsers());
+        ArgumentCaptor<Long> ids = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<String> emails = ArgumentCaptor.forClass(String.class);
+        verify(userService, times(100)).getUserById(ids.capture());
+        verify(userService, times(100)).getUserByEmail(emails.capture());
+        // every probe is new, so none of them can be answered from a cache
+        assertEquals(100, Set.copyOf(ids.getAllValues()).size());
+        assertEquals(100, Set.copyOf(emails.getAllValues()).size());
+        assertTrue(ids.getAllValues().stream().allMatch(id -> id < 0));
+        assertTrue(emails.getAllValues().stream().allMatch(email -> email.endsWith("@warm-up.invalid")));
+        verify(userDao, atLeastOnce()).findById(anyLong());
+        verify(userDao, atLeastOnce()).findByEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("Синтетическая нагрузка останавливается по истечении отведённого времени")
+    void shouldStopWorkloadAtDeadline() {
+        // Given
+        when(userService.getUserById(anyLong())).then(invocation -> {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+            return Optional.empty();
+        });
+        UserServiceWarmUp warmUp = new UserServiceWarmUp(userService, userDao,
+                new UserServiceWarmUp.Settings(1_000, 0, Duration.ofSeconds(1)), () -> 0, clock::get);
+
+        // When
+        UserServiceWarmUp.Result result = warmUp.run();
+
+        // Then
+        assertEquals(10, result.getIterations());
+        verify(userDao, never()).findRecent(anyInt());
+    }
+
+    @Test
+    @DisplayName("Ошибка одного шага не прерывает остальные шаги прогрева")
+    void shouldContinueAfterFailingStep() {
+        UserServiceWarmUp warmUp = new UserServiceWarmUp(userService, userDao,
+                new UserServiceWarmUp.Settings(10, 0, Duration.ofSeconds(10)),
+                () -> {
+                    throw new IllegalStateException("database unavailable");
+                }, clock::get);
+
+        UserServiceWarmUp.Result result = warmUp.run();
+
+        assertEquals(0, result.getConnections());
+        assertEquals(10, result.getIterations());
+    }
+
+    @Test
+    @DisplayName("Отключённый прогрев ничего не вызывает")
+    void shouldDoNothingWhenDisabled() {
+        UserServiceWarmUp warmUp = new UserServiceWarmUp(userService, userDao,
+                UserServiceWarmUp.Settings.disabled(), () -> {
+                    fail("pool must not be primed");
+                    return 0;
+                }, clock::get);
+
+        warmUp.run();
+
+        verifyNoInteractions(userService, userDao);
+    }
+}
@@ -0,0 +1,109 @@
+package service.impl;
+
+import models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserTrigramIndexTest {
+
+    @Test
+    @DisplayName("Триграммы слова дополняются пробелами, как в pg_trgm, и не повторяются")
+    void shouldPadWordsIntoDistinctTrigrams() {
+        long[] grams = UserTrigramIndex.trigrams("Jo", "jo@JO.io");
+
+        // "  j", " jo", "jo ", "  i", " io", "io "
+        assertEquals(6, grams.length);
+        assertArrayEquals(UserTrigramIndex.trigrams("jo io", null), grams);
+        assertEquals(0, UserTrigramIndex.trigrams(" @. ", null).length);
+    }
+
+    @Test
+    @DisplayName("Поиск находит пользователя с опечаткой и ранжирует точное совпадение выше")
+    void shouldRankBySimilarity() {
+        // Given
+        UserTrigramIndex index = new UserTrigramIndex();
+        index.rebuild(Stream.of(
+                user(1, "John Smith", "john.smith@example.com"),
+                user(2, "Jon Smithers", "jsmithers@example.com"),
+                user(3, "Maria Garcia", "maria@example.org")));
+
+        // When
+        List<UserTrigramIndex.Match> matches = index.search("john smith", 10);
+
+        // Then
+        assertEquals(List.of(1L, 2L), ids(matches));
+        assertTrue(matches.get(0).getScore() > matches.get(1).getScore());
+        assertEquals(List.of(3L), ids(index.search("garcai", 10)));
+        assertEquals(List.of(3L), ids(index.search("example.org", 1)));
+    }
+
+    @Test
+    @DisplayName("Изменение и удаление пользователя сразу видны в поиске")
+    void shouldApplyUpdatesAndRemovals() {
+        UserTrigramIndex index = new UserTrigramIndex();
+        index.put(user(1, "John Smith", "john@example.com"));
+
+        index.put(user(1, "Peter Parker", "peter@example.com"));
+        assertTrue(index.search("smith", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("parker", 10)));
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertTrue(index.search("parker", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("После уплотнения удалённых записей поиск по оставшимся работает")
+    void shouldCompactDeadSlots() {
+        // Given
+        UserTrigramIndex index = new UserTrigramIndex();
+        index.rebuild(LongStream.rangeClosed(1, 5_000).mapToObj(id -> user(id, "User " + id, "user" + id + "@example.com")));
+        long before = index.getEstimatedBytes();
+
+        // When: removing most users triggers compaction
+        for (long id = 1; id <= 4_000; id++) {
+            index.remove(id);
+        }
+
+        // Then
+        assertEquals(1_000, index.size());
+        assertEquals(4_321L, index.search("user4321", 1).get(0).getId());
+        assertTrue(index.search("user1234", 10).stream().noneMatch(match -> match.getId() == 1_234L));
+        assertTrue(index.getEstimatedBytes() < before);
+    }
+
+    @Test
+    @DisplayName("Многократное изменение одного пользователя не раздувает индекс")
+    void shouldCompactSlotsLeftByUpdates() {
+        // Given
+        UserTrigramIndex index = new UserTrigramIndex();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            index.put(user(1, "John Smith " + (i % 2), "john@example.com"));
+        }
+
+        // Then: without compaction 10 000 dead slots would hold over a megabyte of postings
+        assertEquals(1, index.size());
+        assertTrue(index.getEstimatedBytes() < 256 * 1024, "estimated bytes: " + index.getEstimatedBytes());
+        assertEquals(List.of(1L), ids(index.search("john smith", 10)));
+    }
+
+    private static List<Long> ids(List<UserTrigramIndex.Match> matches) {
+        return matches.stream().map(UserTrigramIndex.Match::getId).collect(Collectors.toList());
+    }
+
+    private static User user(long id, String name, String email) {
+        User user = new User(name, email, 30);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,47 @@
+package util;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.H2Dialect;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test helper that builds a SessionFactory from the application's hibernate.cfg.xml pointed at a
+ * fresh in-memory H2 database in PostgreSQL mode, so tests run the production mapping, cache, pool
+ * and counting hooks without a server. The schema is created on build and dropped on close.
+ */
+public final class EmbeddedH2 {
+
+    private static final AtomicInteger databases = new AtomicInteger();
+
+    private EmbeddedH2() {
+    }
+
+    /**
+     * @param name prefix of the database name; every call gets a new, empty database
+     */
+    public static SessionFactory sessionFactory(String name) {
+        return sessionFactory(name, Map.of());
+    }
+
+    /**
+     * Like {@link #sessionFactory(String)}, with {@code overrides} applied on top of the H2 settings.
+     */
+    public static SessionFactory sessionFactory(String name, Map<String, ?> overrides) {
+        String url = "jdbc:h2:mem:" + name + databases.incrementAndGet()
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+        Configuration configuration = new Configuration()
+                .configure("hibernate.cfg.xml")
+                .setProperty("hibernate.connection.driver_class", "org.h2.Driver")
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.dialect", H2Dialect.class.getName())
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.show_sql", "false");
+        overrides.forEach((key, value) -> configuration.setProperty(key, value.toString()));
+        return configuration.buildSessionFactory();
+    }
+}
@@ -0,0 +1,61 @@
+package util;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentingSessionEventListenerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Закрытие сессии записывает JFR-событие со счётчиками")
+    void shouldRecordSessionEventOnEnd() throws Exception {
+        // Given
+        Path file = tempDir.resolve("session.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("app.HibernateSession");
+            recording.start();
+
+            // When
+            InstrumentingSessionEventListener listener = new InstrumentingSessionEventListener();
+            listener.jdbcExecuteStatementEnd();
+            listener.jdbcExecuteBatchEnd();
+            listener.flushEnd(1, 0);
+            listener.transactionCompletion(true);
+            listener.end();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("app.HibernateSession"))
+                .collect(Collectors.toList());
+        assertEquals(1, events.size());
+        assertEquals(2, events.get(0).getInt("statements"));
+        assertEquals(1, events.get(0).getInt("flushes"));
+        assertEquals(1, events.get(0).getInt("transactions"));
+    }
+
+    @Test
+    @DisplayName("Без активной записи события не создаются и ошибок нет")
+    void shouldDoNothingWhenNotRecording() {
+        InstrumentingSessionEventListener listener = new InstrumentingSessionEventListener();
+        listener.jdbcConnectionAcquisitionStart();
+        listener.jdbcConnectionAcquisitionEnd();
+
+        assertDoesNotThrow(listener::end);
+    }
+}
@@ -0,0 +1,53 @@
+package util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Каждое значение попадает в корзину, границы которой его содержат")
+    void shouldPlaceValuesIntoMatchingBuckets() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123_456_789L, Long.MAX_VALUE};
+
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            long lower = index == 0 ? 0 : LatencyHistogram.bucketUpperBound(index - 1) + 1;
+
+            assertTrue(value >= lower && value <= upper, "value " + value + " outside [" + lower + ", " + upper + "]");
+        }
+    }
+
+    @Test
+    @DisplayName("Перцентили вычисляются с относительной погрешностью не более 12.5%")
+    void shouldReportPercentilesWithinRelativeError() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        // When
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // Then
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(10_000_000, snapshot.getMaxNanos());
+        assertEquals(5_000_000, snapshot.getValueAtPercentile(50), 5_000_000 * 0.125);
+        assertEquals(9_900_000, snapshot.getValueAtPercentile(99), 9_900_000 * 0.125);
+        assertEquals(10_000_000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    @DisplayName("Пустая гистограмма возвращает нули")
+    void shouldReturnZerosWhenEmpty() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+        assertEquals(0.0, snapshot.getMeanNanos());
+    }
+}
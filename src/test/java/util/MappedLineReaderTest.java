@@ -0,0 +1,54 @@
+package util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLineReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Строки читаются целиком, даже если пересекают границу отображённого окна")
+    void shouldReadLinesAcrossWindowBoundaries() throws IOException {
+        // Given: a 7-byte window splits most lines, including the multi-byte characters
+        Path file = write("\uFEFFname,email\r\nИван,ivan@example.com\n\nlast line without newline");
+
+        // When
+        List<String> lines = new ArrayList<>();
+        try (MappedLineReader reader = new MappedLineReader(file, 7)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            assertEquals(reader.getSize(), reader.getPosition());
+        }
+
+        // Then
+        assertEquals(List.of("name,email", "Иван,ivan@example.com", "", "last line without newline"), lines);
+    }
+
+    @Test
+    @DisplayName("Пустой файл не содержит строк")
+    void shouldReturnNullForEmptyFile() throws IOException {
+        try (MappedLineReader reader = new MappedLineReader(write(""))) {
+            assertNull(reader.readLine());
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = directory.resolve("lines.txt");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
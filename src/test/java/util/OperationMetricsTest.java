@@ -0,0 +1,146 @@
+package util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationMetricsTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final OperationMetrics metrics = new OperationMetrics("TestDao", clock::get);
+
+    @AfterEach
+    void tearDown() {
+        metrics.unregisterMBeans();
+    }
+
+    @Test
+    @DisplayName("Вызовы, ошибки и задержки учитываются по каждой операции")
+    void shouldCountCallsErrorsAndLatency() {
+        // Given
+        OperationMetrics.Operation find = metrics.operation("find");
+
+        // When
+        String result = find.call(() -> {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+            return "found";
+        });
+        assertThrows(IllegalStateException.class, () -> find.run(() -> {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+            throw new IllegalStateException("boom");
+        }));
+
+        // Then
+        assertEquals("found", result);
+        assertEquals(2, find.getCallCount());
+        assertEquals(1, find.getErrorCount());
+        assertEquals(20.0, find.getMaxMillis(), 0.001);
+        assertEquals(5.0, find.getP50Millis(), 5.0 * 0.125);
+        assertEquals(80.0, find.getThroughput(), 0.001);
+        assertSame(find, metrics.operation("find"));
+    }
+
+    @Test
+    @DisplayName("SQL текущего потока суммируется по вызовам, текст запросов записывается только по запросу")
+    void shouldAddUpSqlOfTheCallingThread() {
+        // Given
+        OperationMetrics.Operation find = metrics.operation("find");
+
+        // When
+        SqlStatementCounter recording = SqlStatementCounter.start(true);
+        SqlStatementCounter counting = SqlStatementCounter.start();
+        find.run(() -> {
+            SqlStatementCounter.statementPrepared("select * from users where id = ?");
+            SqlStatementCounter.roundTrip();
+            SqlStatementCounter.rowFetched();
+        });
+        find.call(() -> {
+            SqlStatementCounter.statementPrepared("insert into users values (?)");
+            SqlStatementCounter.statementPrepared("  UPDATE users set name = ?");
+            SqlStatementCounter.roundTrip();
+            return null;
+        });
+        counting.close();
+        recording.close();
+        SqlStatementCounter.statementPrepared("delete from users");
+
+        // Then
+        assertEquals(3, find.getStatementCount());
+        assertEquals(2, find.getRoundTripCount());
+        assertEquals(1, find.getRowsFetched());
+        assertEquals(3, counting.getStatements());
+        assertEquals(1, counting.getSelects());
+        assertEquals(1, counting.getInserts());
+        assertEquals(1, counting.getUpdates());
+        assertEquals(0, counting.getDeletes());
+        assertTrue(counting.getRecordedStatements().isEmpty());
+        assertEquals(3, recording.getRecordedStatements().size());
+    }
+
+    @Test
+    @DisplayName("Сброс обнуляет счётчики и задержки, операции остаются")
+    void shouldResetCounts() {
+        // Given
+        OperationMetrics.Operation find = metrics.operation("find");
+        assertThrows(IllegalStateException.class, () -> find.run(() -> {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+            SqlStatementCounter.statementPrepared("select 1");
+            throw new IllegalStateException("boom");
+        }));
+
+        // When
+        metrics.reset();
+        find.run(() -> clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5)));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+
+        // Then
+        assertSame(find, metrics.operation("find"));
+        assertEquals(1, find.getCallCount());
+        assertEquals(0, find.getErrorCount());
+        assertEquals(0, find.getStatementCount());
+        assertEquals(5.0, find.getMaxMillis(), 5.0 * 0.125);
+        assertEquals(100.0, find.getThroughput(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Снимок в текстовом виде содержит все операции")
+    void shouldDumpAllOperations() {
+        metrics.operation("save").run(() -> { });
+        metrics.operation("delete");
+
+        String dump = metrics.dump();
+
+        assertTrue(dump.startsWith("TestDao"));
+        assertTrue(dump.contains("save") && dump.contains("calls=1"));
+        assertTrue(dump.indexOf("delete") < dump.indexOf("save"));
+    }
+
+    @Test
+    @DisplayName("Операции публикуются через JMX, включая созданные после регистрации")
+    void shouldPublishOperationsOverJmx() throws Exception {
+        // Given
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        OperationMetrics.Operation find = metrics.operation("find");
+        find.run(() -> { });
+
+        // When
+        metrics.registerMBeans();
+        OperationMetrics.Operation late = metrics.operation("late");
+
+        // Then
+        ObjectName findName = metrics.objectName(find);
+        assertEquals(1L, server.getAttribute(findName, "CallCount"));
+        assertTrue(server.isRegistered(metrics.objectName(late)));
+
+        metrics.unregisterMBeans();
+        assertFalse(server.isRegistered(findName));
+    }
+}
@@ -0,0 +1,64 @@
+package util;
+
+import org.hibernate.cfg.JdbcSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledConnectionProviderTest {
+
+    private final PooledConnectionProvider provider = new PooledConnectionProvider();
+
+    @AfterEach
+    void tearDown() {
+        provider.stop();
+    }
+
+    @Test
+    @DisplayName("Настройки jakarta.persistence.jdbc.* важнее устаревших hibernate.connection.*")
+    void shouldPreferJakartaSettings() throws SQLException {
+        // Given
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(JdbcSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:jakarta");
+        settings.put(JdbcSettings.JAKARTA_JDBC_USER, "sa");
+        settings.put("hibernate.connection.url", "jdbc:h2:mem:legacy");
+        settings.put("hibernate.connection.username", "legacy");
+        settings.put("hibernate.hikari.minimumIdle", "1");
+
+        // When
+        provider.configure(settings);
+
+        // Then
+        try (Connection connection = provider.getConnection()) {
+            assertEquals("jdbc:h2:mem:jakarta", connection.getMetaData().getURL());
+            assertEquals("SA", connection.getMetaData().getUserName());
+        }
+    }
+
+    @Test
+    @DisplayName("Без jakarta-настроек используются hibernate.connection.*")
+    void shouldFallBackToLegacySettings() throws SQLException {
+        // Given
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("hibernate.connection.driver_class", "org.h2.Driver");
+        settings.put("hibernate.connection.url", "jdbc:h2:mem:legacy");
+        settings.put("hibernate.connection.username", "sa");
+        settings.put("hibernate.connection.password", "");
+        settings.put("hibernate.hikari.minimumIdle", "1");
+
+        // When
+        provider.configure(settings);
+
+        // Then
+        try (Connection connection = provider.getConnection()) {
+            assertEquals("jdbc:h2:mem:legacy", connection.getMetaData().getURL());
+        }
+    }
+}
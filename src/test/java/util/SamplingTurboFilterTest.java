@@ -0,0 +1,70 @@
+package util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SamplingTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private SamplingTurboFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new SamplingTurboFilter();
+        filter.setContext(context);
+        filter.addLoggerPrefix("dao");
+        filter.setRate(10);
+        filter.start();
+    }
+
+    @Test
+    @DisplayName("Из DEBUG-событий настроенных логгеров проходит примерно каждое N-е")
+    void shouldSampleDebugEventsOfConfiguredLoggers() {
+        Logger logger = context.getLogger("dao.impl.UserDaoImpl");
+
+        int passed = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.decide(null, logger, Level.DEBUG, "Found user {}", null, null) == FilterReply.NEUTRAL) {
+                passed++;
+            }
+        }
+
+        assertEquals(10_000, passed, 1_000);
+    }
+
+    @Test
+    @DisplayName("Проверка уровня (isDebugEnabled) не сэмплируется, иначе защищённый вызов проходил бы в 1/N² случаев")
+    void shouldPassLevelChecksThrough() {
+        Logger logger = context.getLogger("dao.impl.UserDaoImpl");
+
+        int passed = 0;
+        for (int i = 0; i < 100_000; i++) {
+            // if (logger.isDebugEnabled()) { logger.debug("Found user {}", id); }
+            if (filter.decide(null, logger, Level.DEBUG, null, null, null) == FilterReply.NEUTRAL
+                    && filter.decide(null, logger, Level.DEBUG, "Found user {}", null, null) == FilterReply.NEUTRAL) {
+                passed++;
+            }
+        }
+
+        assertEquals(10_000, passed, 1_000);
+    }
+
+    @Test
+    @DisplayName("INFO и выше, а также другие логгеры не фильтруются")
+    void shouldNotTouchOtherEvents() {
+        Logger dao = context.getLogger("dao.impl.UserDaoImpl");
+        Logger other = context.getLogger("daoist.Other");
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, dao, Level.WARN, "Stale update", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, other, Level.DEBUG, "Debug", null, null));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlowQueryLogTest {
+
+    // Advanced by the ADVANCE(millis) SQL function, so "slow" statements take no real time. H2 calls
+    // aliased methods reflectively, which is why this class and advance() are public.
+    private static final AtomicLong clock = new AtomicLong();
+
+    private final List<String> entries = new ArrayList<>();
+    private Connection rawConnection;
+
+    public static long advance(long millis) {
+        return clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        rawConnection = DriverManager.getConnection("jdbc:h2:mem:slowquery", "sa", "");
+        try (Statement statement = rawConnection.createStatement()) {
+            statement.execute("CREATE ALIAS IF NOT EXISTS ADVANCE FOR \"util.SlowQueryLogTest.advance\"");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        rawConnection.close();
+    }
+
+    @Test
+    @DisplayName("Медленный запрос логируется с параметрами и временем, быстрый - нет")
+    void shouldLogOnlySlowStatementsWithParameters() throws SQLException {
+        // Given
+        SlowQueryLog log = new SlowQueryLog(100, false, 10, clock::get, entries::add);
+        Connection connection = log.wrap(rawConnection);
+
+        // When
+        query(connection, 5, "fast");
+        query(connection, 250, "slow");
+
+        // Then
+        assertEquals(1, log.getSlowStatementCount());
+        assertEquals(1, entries.size());
+        String entry = entries.get(0);
+        assertTrue(entry.contains("250.0 ms"), entry);
+        assertTrue(entry.contains("SELECT ADVANCE(?), CAST(? AS VARCHAR)"), entry);
+        assertTrue(entry.contains("[250, 'slow']"), entry);
+        assertFalse(entry.contains("plan:"), entry);
+    }
+
+    @Test
+    @DisplayName("Частота записей ограничена, пропущенные учитываются в следующей записи")
+    void shouldRateLimitEntries() throws SQLException {
+        // Given
+        SlowQueryLog log = new SlowQueryLog(100, false, 2, clock::get, entries::add);
+        Connection connection = log.wrap(rawConnection);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            query(connection, 150, "slow-" + i);
+        }
+        advance(1_000);
+        query(connection, 150, "after");
+
+        // Then
+        assertEquals(6, log.getSlowStatementCount());
+        assertEquals(3, log.getWrittenCount());
+        assertTrue(entries.get(2).contains("3 slow queries not logged"), entries.get(2));
+    }
+
+    @Test
+    @DisplayName("В режиме explain к записи добавляется план запроса")
+    void shouldAppendPlanWhenExplainIsEnabled() throws SQLException {
+        SlowQueryLog log = new SlowQueryLog(100, true, 10, clock::get, entries::add);
+
+        query(log.wrap(rawConnection), 150, "slow");
+
+        assertEquals(1, entries.size());
+        assertTrue(entries.get(0).contains("plan:"), entries.get(0));
+        assertFalse(entries.get(0).contains("unavailable"), entries.get(0));
+    }
+
+    @Test
+    @DisplayName("Для медленного пакета логируется размер пакета и последние параметры")
+    void shouldLogBatchSizeWithLastParameters() throws SQLException {
+        SlowQueryLog log = new SlowQueryLog(100, false, 10, clock::get, entries::add);
+        Connection connection = log.wrap(rawConnection);
+
+        try (Statement ddl = rawConnection.createStatement()) {
+            ddl.execute("CREATE TABLE item (ticks BIGINT, label VARCHAR)");
+        }
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO item VALUES (ADVANCE(?), ?)")) {
+            for (int i = 0; i < 3; i++) {
+                statement.setLong(1, 50);
+                statement.setString(2, "item-" + i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        assertEquals(1, entries.size());
+        assertTrue(entries.get(0).contains("batch of 3"), entries.get(0));
+        assertTrue(entries.get(0).contains("[50, 'item-2']"), entries.get(0));
+    }
+
+    private static void query(Connection connection, long millis, String label) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT ADVANCE(?), CAST(? AS VARCHAR)")) {
+            statement.setLong(1, millis);
+            statement.setString(2, label);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+            }
+        }
+    }
+}
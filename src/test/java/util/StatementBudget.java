@@ -0,0 +1,68 @@
+package util;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Test helper that fails when an operation issues more SQL than declared, e.g.
+ * <pre>
+ *     User user = StatementBudget.statements(1).roundTrips(1).call(() -> userService.getUserById(id)).orElseThrow();
+ * </pre>
+ * Counting relies on the hooks configured in hibernate.cfg.xml (see {@link SqlStatementCounter}), so the
+ * SessionFactory under test must be built from it.
+ */
+public final class StatementBudget {
+
+    private final int maxStatements;
+    private int maxRoundTrips = Integer.MAX_VALUE;
+    private long maxRowsFetched = Long.MAX_VALUE;
+
+    private StatementBudget(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    public static StatementBudget statements(int maxStatements) {
+        return new StatementBudget(maxStatements);
+    }
+
+    public StatementBudget roundTrips(int maxRoundTrips) {
+        this.maxRoundTrips = maxRoundTrips;
+        return this;
+    }
+
+    public StatementBudget rowsFetched(long maxRowsFetched) {
+        this.maxRowsFetched = maxRowsFetched;
+        return this;
+    }
+
+    public <T> T call(Supplier<T> operation) {
+        T result;
+        SqlStatementCounter counter = SqlStatementCounter.start(true);
+        try {
+            result = operation.get();
+        } finally {
+            counter.close();
+        }
+        check(counter);
+        return result;
+    }
+
+    public void run(Runnable operation) {
+        call(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    private void check(SqlStatementCounter counter) {
+        if (counter.getStatements() > maxStatements
+                || counter.getRoundTrips() > maxRoundTrips
+                || counter.getRowsFetched() > maxRowsFetched) {
+            fail("SQL budget exceeded: expected at most " + maxStatements + " statements, "
+                    + (maxRoundTrips == Integer.MAX_VALUE ? "any" : maxRoundTrips) + " round trips, "
+                    + (maxRowsFetched == Long.MAX_VALUE ? "any" : maxRowsFetched) + " rows; was " + counter
+                    + "\n  " + String.join("\n  ", counter.getRecordedStatements()));
+        }
+    }
+}